@@ -0,0 +1,135 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Peter Cappello.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package applications.mandelbrotset;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Serialization time, in ms, of a block of iteration counts: an IterationCounts, 
+ * whose flat int[] is written as 2-byte counts, against the Integer[][] that it replaced.
+ * The counts are random, in [ 0, ITERATION_LIMIT ). Blocks are 256 x 256 and 4096 x 4096 pixels.
+ * main prints each block's serialized size, in bytes, before running the benchmarks.
+ * @author Peter Cappello
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 2, time = 1 )
+@Measurement( iterations = 3, time = 1 )
+@Fork( value = 1, jvmArgs = "-Xmx3g" )
+public class IterationCountsBenchmark
+{
+    static final private int ITERATION_LIMIT = 512;
+    static final private long SEED = 1;
+    
+    @Param( { "256", "4096" } )
+    public int numPixels;
+    
+    private Integer[][] boxedCounts;
+    private IterationCounts flatCounts;
+    private ByteArrayOutputStream bytes;
+    
+    @Setup
+    public void setup()
+    {
+        boxedCounts = boxedCounts( numPixels );
+        flatCounts = flatCounts( boxedCounts );
+        bytes = new ByteArrayOutputStream();
+    }
+    
+    @Benchmark
+    public int boxed() throws IOException { return serialize( boxedCounts, bytes ); }
+    
+    @Benchmark
+    public int flat() throws IOException { return serialize( flatCounts, bytes ); }
+    
+    static private Integer[][] boxedCounts( int numPixels )
+    {
+        final Random random = new Random( SEED );
+        final Integer[][] counts = new Integer[ numPixels ][ numPixels ];
+        for ( int row = 0; row < numPixels; row++ )
+        {
+            for ( int col = 0; col < numPixels; col++ )
+            {
+                counts[ row ][ col ] = random.nextInt( ITERATION_LIMIT );
+            }
+        }
+        return counts;
+    }
+    
+    static private IterationCounts flatCounts( Integer[][] boxedCounts )
+    {
+        final int numPixels = boxedCounts.length;
+        final int[] counts = new int[ numPixels * numPixels ];
+        for ( int pixel = 0; pixel < counts.length; pixel++ )
+        {
+            counts[ pixel ] = boxedCounts[ pixel / numPixels ][ pixel % numPixels ];
+        }
+        return new IterationCounts( counts, numPixels, 0, 0 );
+    }
+    
+    /**
+     * @return the number of bytes that object serializes to.
+     */
+    static private int serialize( Object object, ByteArrayOutputStream bytes ) throws IOException
+    {
+        bytes.reset();
+        try ( ObjectOutputStream out = new ObjectOutputStream( bytes ) ) { out.writeObject( object ); }
+        return bytes.size();
+    }
+    
+    /**
+     * Print the serialized sizes, then run the benchmarks.
+     * @param args unused.
+     * @throws Exception
+     */
+    public static void main( String[] args ) throws Exception
+    {
+        for ( int numPixels : new int[]{ 256, 4096 } )
+        {
+            final Integer[][] boxedCounts = boxedCounts( numPixels );
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            System.out.printf( "%d x %d pixels: Integer[][] %,d B, IterationCounts %,d B%n", numPixels, numPixels,
+                               serialize( boxedCounts, bytes ), serialize( flatCounts( boxedCounts ), bytes ) );
+        }
+        new Runner( new OptionsBuilder().include( IterationCountsBenchmark.class.getSimpleName() ).build() ).run();
+    }
+}
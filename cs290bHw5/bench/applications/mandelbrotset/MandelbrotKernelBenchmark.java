@@ -0,0 +1,104 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Peter Cappello.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package applications.mandelbrotset;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Pixel throughput, in pixels/s, of TaskMandelbrotSet's 4-lane kernel, getIterationCounts, 
+ * against its scalar kernel, getIterationCount, which it replaced on the hot path.
+ * Each computes every pixel of a NUM_PIXELS x NUM_PIXELS image of the job's default view,
+ * without Mariani-Silver subdivision, at iteration limits 512 and 4096.
+ * @author Peter Cappello
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class MandelbrotKernelBenchmark
+{
+    static final private int NUM_PIXELS = 64;
+    
+    @Param( { "512", "4096" } )
+    public int iterationLimit;
+    
+    private TaskMandelbrotSet task;
+    private int[] counts;
+    
+    @Setup
+    public void setup()
+    {
+        task = new TaskMandelbrotSet( TaskMandelbrotSet.LOWER_LEFT_X, TaskMandelbrotSet.LOWER_LEFT_Y, 
+                                      TaskMandelbrotSet.EDGE_LENGTH, NUM_PIXELS, iterationLimit );
+        counts = new int[ NUM_PIXELS * NUM_PIXELS ];
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation( NUM_PIXELS * NUM_PIXELS )
+    public int[] scalar()
+    {
+        for ( int pixel = 0; pixel < counts.length; pixel++ )
+        {
+            counts[ pixel ] = task.getIterationCount( pixel / NUM_PIXELS, pixel % NUM_PIXELS );
+        }
+        return counts;
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation( NUM_PIXELS * NUM_PIXELS )
+    public int[] lanes()
+    {
+        for ( int pixel = 0; pixel < counts.length; pixel += 4 )
+        {
+            task.getIterationCounts( counts, pixel, pixel + 1, pixel + 2, pixel + 3 );
+        }
+        return counts;
+    }
+    
+    /**
+     * Run the benchmarks.
+     * @param args unused.
+     * @throws Exception
+     */
+    public static void main( String[] args ) throws Exception
+    {
+        new Runner( new OptionsBuilder().include( MandelbrotKernelBenchmark.class.getSimpleName() ).build() ).run();
+    }
+}
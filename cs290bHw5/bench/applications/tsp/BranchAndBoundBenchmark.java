@@ -0,0 +1,110 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Peter Cappello.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package applications.tsp;
+
+import java.rmi.RemoteException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.LogManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import system.ComputerImpl;
+import system.SpaceImpl;
+import util.Graph;
+
+/**
+ * Solve time, in ms, of a TSP root task by BranchAndBound, which allocates nothing per search node, 
+ * against TaskTsp's search, which makes a task per node, as the root's solve did before.
+ * Both search from the greedy tour under the nearest neighbors lower bound, 
+ * on Graph.makeGraph( numCities, SEED ), without dominance pruning: the task has no job context.
+ * Each solve starts from the greedy tour: the computer forgets the tours that the previous one shared.
+ * @author Peter Cappello
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.SingleShotTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 1 )
+@Measurement( iterations = 3 )
+@Fork( 1 )
+public class BranchAndBoundBenchmark
+{
+    static final private int SEED = 8;
+    static final private int JOB_ID = 1;
+    
+    @Param( { "14", "16", "18" } )
+    public int numCities;
+    
+    private ComputerImpl computer;
+    private TaskTsp task;
+    private SharedTour greedyTour;
+    
+    @Setup( Level.Trial )
+    public void setup() throws RemoteException
+    {
+        LogManager.getLogManager().reset();
+        computer = new ComputerImpl( new SpaceImpl() );
+        final TspContext context = new TspContext( Graph.makeGraph( numCities, SEED ) );
+        final List<Integer> tour = Graph.greedyTour( context.distances() );
+        greedyTour = new SharedTour( tour, context.distances().tourDistance( tour ) );
+        greedyTour.epoch( JOB_ID );
+        task = new TaskTsp( context, new LowerBoundNearestNeighbors( context.distances() ) );
+        task.computer( computer );
+        task.jobId( JOB_ID );
+    }
+    
+    @Setup( Level.Invocation )
+    public void shareGreedyTour()
+    {
+        computer.jobDone( JOB_ID );
+        computer.downShared( greedyTour );
+    }
+    
+    @Benchmark
+    public Tour branchAndBound() { return new BranchAndBound( task ).solve(); }
+    
+    @Benchmark
+    public Tour search() { return task.search(); }
+    
+    /**
+     * Run the benchmarks.
+     * @param args unused.
+     * @throws Exception
+     */
+    public static void main( String[] args ) throws Exception
+    {
+        new Runner( new OptionsBuilder().include( BranchAndBoundBenchmark.class.getSimpleName() ).build() ).run();
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Peter Cappello.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package applications.tsp;
+
+import java.rmi.RemoteException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.LogManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import system.ComputerImpl;
+import system.SpaceImpl;
+import util.Graph;
+
+/**
+ * Solve time, in ms, of a TSP root task by BranchAndBound, with and without dominance pruning,
+ * on Graph.makeGraph( numCities, seed ) from the greedy tour under the nearest neighbors lower bound.
+ * Without, the task has no job context, so it has no DominanceMemo;
+ * with, each solve has a new context id, so it starts with a cold memo.
+ * Each solve starts from the greedy tour: the computer forgets the tours that the previous one shared.
+ * @author Peter Cappello
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.SingleShotTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 1 )
+@Measurement( iterations = 3 )
+@Fork( 1 )
+public class DominanceMemoBenchmark
+{
+    static final private int JOB_ID = 1;
+    
+    @Param( { "18", "20", "22" } )
+    public int numCities;
+    
+    @Param( { "1", "2" } )
+    public int seed;
+    
+    private ComputerImpl computer;
+    private TaskTsp task;
+    private SharedTour greedyTour;
+    private long contextId;
+    
+    @Setup( Level.Trial )
+    public void setup() throws RemoteException
+    {
+        LogManager.getLogManager().reset();
+        computer = new ComputerImpl( new SpaceImpl() );
+        final TspContext context = new TspContext( Graph.makeGraph( numCities, seed ) );
+        final List<Integer> tour = Graph.greedyTour( context.distances() );
+        greedyTour = new SharedTour( tour, context.distances().tourDistance( tour ) );
+        greedyTour.epoch( JOB_ID );
+        task = new TaskTsp( context, new LowerBoundNearestNeighbors( context.distances() ) );
+        task.computer( computer );
+        task.jobId( JOB_ID );
+    }
+    
+    @Setup( Level.Invocation )
+    public void shareGreedyTour()
+    {
+        computer.jobDone( JOB_ID );
+        computer.downShared( greedyTour );
+    }
+    
+    @Benchmark
+    public Tour withDominance() 
+    { 
+        task.contextId( ++contextId );
+        return new BranchAndBound( task ).solve(); 
+    }
+    
+    @Benchmark
+    public Tour withoutDominance() 
+    { 
+        task.contextId( 0 );
+        return new BranchAndBound( task ).solve(); 
+    }
+    
+    /**
+     * Run the benchmarks.
+     * @param args unused.
+     * @throws Exception
+     */
+    public static void main( String[] args ) throws Exception
+    {
+        new Runner( new OptionsBuilder().include( DominanceMemoBenchmark.class.getSimpleName() ).build() ).run();
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Peter Cappello.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package applications.tsp;
+
+import api.ReturnValue;
+import java.rmi.RemoteException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.LogManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import system.ComputerImpl;
+import system.SpaceImpl;
+import util.Graph;
+
+/**
+ * Run time, in ms, of a TSP job on a Space with NUM_COMPUTERS in-process computers, under each lower bound:
+ * nn, nearest neighbors; pt, partial tour; ot, the Held-Karp 1-tree.
+ * The job searches Graph.makeGraph( numCities, seed ) from the greedy tour.
+ * Before each job, a small job on another graph leaves the dominance memo cold.
+ * @author Peter Cappello
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.SingleShotTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 1 )
+@Measurement( iterations = 3 )
+@Fork( 1 )
+public class LowerBoundBenchmark
+{
+    static final private int NUM_COMPUTERS = 4;
+    static final private int NUM_OTHER_CITIES = 10;
+    
+    @Param( { "nn", "pt", "ot" } )
+    public String bound;
+    
+    @Param( { "15", "18", "20" } )
+    public int numCities;
+    
+    @Param( { "1", "2" } )
+    public int seed;
+    
+    private SpaceImpl space;
+    private TspContext context;
+    private TspContext otherContext;
+    
+    @Setup( Level.Trial )
+    public void setup() throws RemoteException
+    {
+        LogManager.getLogManager().reset(); // the Space logs each job's metrics
+        space = new SpaceImpl();
+        for ( int i = 0; i < NUM_COMPUTERS; i++ )
+        {
+            space.register( new ComputerImpl( space ), 1 );
+        }
+        context = new TspContext( Graph.makeGraph( numCities, seed ) );
+        otherContext = new TspContext( Graph.makeGraph( NUM_OTHER_CITIES, seed ) );
+    }
+    
+    @Setup( Level.Invocation )
+    public void coldMemo() { compute( otherContext ); }
+    
+    @Benchmark
+    public ReturnValue<?> compute() { return compute( context ); }
+    
+    private ReturnValue<?> compute( TspContext context )
+    {
+        final List<Integer> greedyTour = Graph.greedyTour( context.distances() );
+        return space.compute( new TaskTsp( context, lowerBound( context ) ), 
+                              new SharedTour( greedyTour, context.distances().tourDistance( greedyTour ) ), context );
+    }
+    
+    private LowerBound lowerBound( TspContext context )
+    {
+        switch ( bound )
+        {
+            case "nn": return new LowerBoundNearestNeighbors( context.distances() );
+            case "pt": return new LowerBoundPartialTour( context.distances(), Collections.singletonList( 0 ) );
+            case "ot": return new LowerBoundOneTree( context.distances() );
+            default: throw new IllegalArgumentException( "Unknown lower bound " + bound );
+        }
+    }
+    
+    /**
+     * Run the benchmark with every bound on up to 20 cities, and with the 1-tree bound on more:
+     * the others take minutes on 22 cities.
+     * @param args unused.
+     * @throws Exception
+     */
+    public static void main( String[] args ) throws Exception
+    {
+        new Runner( new OptionsBuilder().include( LowerBoundBenchmark.class.getSimpleName() ).build() ).run();
+        new Runner( new OptionsBuilder().include( LowerBoundBenchmark.class.getSimpleName() )
+                                        .param( "bound", "ot" )
+                                        .param( "numCities", "22", "25" )
+                                        .build() ).run();
+    }
+}
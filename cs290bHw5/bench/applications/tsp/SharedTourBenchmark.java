@@ -0,0 +1,159 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Peter Cappello.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package applications.tsp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.rmi.RemoteException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.LogManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import system.ComputerImpl;
+import system.SpaceImpl;
+import util.Graph;
+
+/**
+ * Time, in ns, for a task to read its shared tour's cost: 
+ * Task.shared().cost(), a volatile read of an immutable SharedTour,
+ * against the lock-guarded reads of a mutable tour that it replaced.
+ * The sizes of a serialized shared tour and of its first tier, which is all that computers get, are printed.
+ * @author Peter Cappello
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class SharedTourBenchmark
+{
+    static final private int NUM_CITIES = 18;
+    static final private int SEED = 1;
+    static final private int JOB_ID = 1;
+    
+    private TaskTsp task;
+    private LockedComputer lockedComputer;
+    
+    @Setup
+    public void setup() throws RemoteException
+    {
+        LogManager.getLogManager().reset();
+        final ComputerImpl computer = new ComputerImpl( new SpaceImpl() );
+        final SharedTour greedyTour = greedyTour();
+        greedyTour.epoch( JOB_ID );
+        computer.downShared( greedyTour );
+        task = new TaskTsp( new TspContext( Graph.makeGraph( NUM_CITIES, SEED ) ) );
+        task.computer( computer );
+        task.jobId( JOB_ID );
+        lockedComputer = new LockedComputer( new LockedTour( greedyTour.tour(), greedyTour.cost() ) );
+    }
+    
+    @Benchmark
+    public double immutable() { return ( (SharedTour) task.shared() ).cost(); }
+    
+    @Benchmark
+    public double locked() { return lockedComputer.shared().cost(); }
+    
+    static private SharedTour greedyTour()
+    {
+        final TspContext context = new TspContext( Graph.makeGraph( NUM_CITIES, SEED ) );
+        final List<Integer> tour = Graph.greedyTour( context.distances() );
+        return new SharedTour( tour, context.distances().tourDistance( tour ) );
+    }
+    
+    /**
+     * A computer's shared tour as it was: guarded by a lock.
+     */
+    static final private class LockedComputer
+    {
+        final private Object sharedLock = new Object();
+        final private LockedTour shared;
+        
+        LockedComputer( LockedTour shared ) { this.shared = shared; }
+        
+        LockedTour shared() { synchronized ( sharedLock ) { return shared; } }
+    }
+    
+    /**
+     * A shared tour as it was: each accessor is synchronized; all of it is serialized.
+     */
+    static final private class LockedTour implements Serializable
+    {
+        static final private long serialVersionUID = 1L;
+        
+        final private List<Integer> tour;
+        final private double cost;
+        
+        LockedTour( List<Integer> tour, double cost ) 
+        { 
+            this.tour = tour;
+            this.cost = cost;
+        }
+        
+        synchronized double cost() { return cost; }
+    }
+    
+    static private int serializedSize( Object object ) throws IOException
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try ( ObjectOutputStream outputStream = new ObjectOutputStream( bytes ) )
+        {
+            outputStream.writeObject( object );
+        }
+        return bytes.size();
+    }
+    
+    /**
+     * Print the serialized sizes of a shared tour, then run the benchmarks with 1 and 4 threads.
+     * @param args unused.
+     * @throws Exception
+     */
+    public static void main( String[] args ) throws Exception
+    {
+        final SharedTour greedyTour = greedyTour();
+        System.out.printf( "%d cities: mutable tour %,d B, SharedTour %,d B, its first tier %,d B%n", NUM_CITIES, 
+                           serializedSize( new LockedTour( greedyTour.tour(), greedyTour.cost() ) ),
+                           serializedSize( greedyTour ), serializedSize( greedyTour.bound() ) );
+        for ( int numThreads : new int[]{ 1, 4 } )
+        {
+            new Runner( new OptionsBuilder().include( SharedTourBenchmark.class.getSimpleName() )
+                                            .threads( numThreads )
+                                            .build() ).run();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Peter Cappello.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package system;
+
+import api.ReturnValue;
+import api.Shared;
+import applications.tsp.LowerBoundNearestNeighbors;
+import applications.tsp.SharedTour;
+import applications.tsp.TaskTsp;
+import applications.tsp.TspContext;
+import java.rmi.RemoteException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.LogManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import util.Graph;
+
+/**
+ * Run time, in ms, of a TSP job on a Space with NUM_COMPUTERS in-process stand-in computers.
+ * Each stand-in tells its ComputerImpl that the Space has idle workers, so every decomposition is exported,
+ * and the Space's dispatch order shapes the whole search tree.
+ * The job searches Graph.makeGraph( numCities, seed ) from the greedy tour under the nearest neighbors lower bound.
+ * Each job starts with a cold dominance memo. After each job, the number of tasks dispatched 
+ * and the time at which a computer last saw a shorter tour, that is, the time to the optimum, are printed.
+ * Run it with Configuration.BEST_FIRST_DISPATCH false, then true, to compare LIFO with best first dispatch:
+ * a compile-time constant, so clean the build between runs.
+ * @author Peter Cappello
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.SingleShotTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 1 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+public class DispatchOrderBenchmark
+{
+    static final private int NUM_COMPUTERS = 4;
+    static final private int NUM_OTHER_CITIES = 10;
+    
+    @Param( { "16", "18" } )
+    public int numCities;
+    
+    @Param( { "1", "2", "3", "4", "5" } )
+    public int seed;
+    
+    private SpaceImpl space;
+    private TspContext context;
+    private List<Integer> greedyTour;
+    private TspContext otherContext;
+    private long startTime;
+    private long numTasksDispatched;
+    private double shortestTourCost;
+    private long optimumTime;
+    
+    @Setup( Level.Trial )
+    public void setup() throws RemoteException
+    {
+        LogManager.getLogManager().reset(); // the Space logs each job's metrics
+        space = new SpaceImpl();
+        for ( int i = 0; i < NUM_COMPUTERS; i++ )
+        {
+            space.register( new ExportingComputer( new ComputerImpl( space ) ), 1 );
+        }
+        context = new TspContext( Graph.makeGraph( numCities, seed ) );
+        greedyTour = Graph.greedyTour( context.distances() );
+        otherContext = new TspContext( Graph.makeGraph( NUM_OTHER_CITIES, seed ) );
+    }
+    
+    /**
+     * Run a small job on another graph, whose dominance memo replaces the measured graph's:
+     * each measured job starts with a cold memo.
+     */
+    @Setup( Level.Invocation )
+    public void start()
+    {
+        compute( otherContext, Graph.greedyTour( otherContext.distances() ) );
+        synchronized ( this )
+        {
+            numTasksDispatched = 0;
+            shortestTourCost = context.distances().tourDistance( greedyTour );
+            startTime = optimumTime = System.nanoTime();
+        }
+    }
+    
+    @Benchmark
+    public ReturnValue<?> compute() { return compute( context, greedyTour ); }
+    
+    private ReturnValue<?> compute( TspContext context, List<Integer> greedyTour )
+    {
+        return space.compute( new TaskTsp( context, new LowerBoundNearestNeighbors( context.distances() ) ), 
+                              new SharedTour( greedyTour, context.distances().tourDistance( greedyTour ) ), context );
+    }
+    
+    @TearDown( Level.Invocation )
+    synchronized public void report()
+    {
+        System.out.printf( "%nBEST_FIRST_DISPATCH %b, n=%d seed=%d: %d tasks dispatched, optimum at %d ms%n", 
+                           Configuration.BEST_FIRST_DISPATCH, numCities, seed, numTasksDispatched, 
+                           ( optimumTime - startTime ) / 1000000 );
+    }
+    
+    synchronized private void executed( int numTasks, Shared<?> shared )
+    {
+        numTasksDispatched += numTasks;
+        if ( shared != null && ( (SharedTour) shared ).cost() < shortestTourCost )
+        {
+            shortestTourCost = ( (SharedTour) shared ).cost();
+            optimumTime = System.nanoTime();
+        }
+    }
+    
+    /**
+     * A stand-in for a remote computer that always exports decompositions,
+     * and reports the tasks it executes and its job's shortest tour after each batch.
+     */
+    final private class ExportingComputer implements Computer
+    {
+        final private ComputerImpl computer;
+        
+        ExportingComputer( ComputerImpl computer ) { this.computer = computer; }
+        
+        @Override
+        public Return execute( Task task ) throws RemoteException 
+        { 
+            final Return returnValue = computer.execute( task );
+            executed( 1, computer.shared( task.jobId() ) );
+            return returnValue;
+        }
+
+        @Override
+        public List<Return> executeBatch( List<Task> tasks, boolean spaceHasIdleWorkers ) throws RemoteException
+        {
+            final List<Return> returns = computer.executeBatch( tasks, true );
+            executed( tasks.size(), tasks.isEmpty() ? null : computer.shared( tasks.get( 0 ).jobId() ) );
+            return returns;
+        }
+
+        @Override
+        public void downShared( Shared<?> shared ) throws RemoteException { computer.downShared( shared ); }
+
+        @Override
+        public void jobDone( int jobId ) throws RemoteException { computer.jobDone( jobId ); }
+    }
+    
+    /**
+     * Run the benchmark.
+     * @param args unused.
+     * @throws Exception
+     */
+    public static void main( String[] args ) throws Exception
+    {
+        new Runner( new OptionsBuilder().include( DispatchOrderBenchmark.class.getSimpleName() ).build() ).run();
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Peter Cappello.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package system;
+
+import api.ReturnValue;
+import api.TaskCompose;
+import java.rmi.RemoteException;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JLabel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Result processing throughput, in results/s, of SpaceImpl.processResult 
+ * with 1 to 64 producers: WorkerProxies processing their tasks' Returns concurrently.
+ * A producer puts a 2-arg compose task into the waiting task map 
+ * and processes a Return for each of its 2 children.
+ * The last Return makes the compose task ready; its dispatch is not measured here:
+ * ReadyTasksBenchmark measures that.
+ * The baseline holds the Space's lock, as processResult did when it was synchronized.
+ * @author Peter Cappello
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class ProcessResultBenchmark
+{
+    private SpaceImpl space;
+    
+    @Setup
+    public void setup() throws RemoteException { space = new SpaceImpl(); }
+    
+    @Benchmark
+    @OperationsPerInvocation( 2 )
+    public TaskCompose<?> processResults() { return processResults( false ); }
+    
+    /**
+     * The baseline: processResult holding the Space's lock, as it did when it was synchronized.
+     */
+    @Benchmark
+    @OperationsPerInvocation( 2 )
+    public TaskCompose<?> processResultsLocked() { return processResults( true ); }
+    
+    private TaskCompose<?> processResults( boolean locked )
+    {
+        final TaskCompose<?> compose = new TaskSum();
+        compose.id( space.makeTaskId() );
+        compose.composeId( SpaceImpl.FINAL_RETURN_VALUE );
+        compose.numArgs( 2 );
+        space.putCompose( compose );
+        for ( int argNum = 0; argNum < 2; argNum++ )
+        {
+            final Task child = new TaskChild();
+            child.id( space.makeTaskId() );
+            child.composeId( compose.id() );
+            child.composeArgNum( argNum );
+            final Return result = new ReturnValueChild( child, argNum );
+            if ( locked )
+            {
+                synchronized ( space ) { space.processResult( child, result ); }
+            }
+            else
+            {
+                space.processResult( child, result );
+            }
+        }
+        return compose;
+    }
+    
+    static final private class TaskSum extends TaskCompose<Integer>
+    {
+        static final private long serialVersionUID = 1L;
+        
+        @Override
+        public ReturnValue<?> call() { throw new UnsupportedOperationException(); }
+        
+        /**
+         * As TaskCompose.arg, without dispatching the ready compose task.
+         */
+        @Override
+        public void arg( final int argNum, final Integer argValue, SpaceImpl space ) 
+        { 
+            if ( arg( argNum, argValue ) )
+            {
+                space.removeWaitingTask( id() );
+            }
+        }
+    }
+    
+    static final private class TaskChild extends Task
+    {
+        static final private long serialVersionUID = 1L;
+        
+        @Override
+        public Return call() { throw new UnsupportedOperationException(); }
+    }
+    
+    static final private class ReturnValueChild extends ReturnValue<Integer>
+    {
+        static final private long serialVersionUID = 1L;
+        
+        ReturnValueChild( Task task, Integer value ) { super( task, value ); }
+        
+        @Override
+        public JLabel view() { throw new UnsupportedOperationException(); }
+    }
+    
+    /**
+     * Run the benchmark with 1, 4, 16, and 64 producers.
+     * @param args unused.
+     * @throws Exception
+     */
+    public static void main( String[] args ) throws Exception
+    {
+        for ( int numProducers : new int[]{ 1, 4, 16, 64 } )
+        {
+            new Runner( new OptionsBuilder().include( ProcessResultBenchmark.class.getSimpleName() )
+                                            .threads( numProducers )
+                                            .build() ).run();
+        }
+    }
+}
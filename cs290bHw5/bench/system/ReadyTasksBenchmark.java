@@ -0,0 +1,160 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Peter Cappello.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package system;
+
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Ready task throughput, in tasks/s, of the Space's scheduler:
+ * a job's WorkStealingReadyTasks with the Space's numReadyTasks Semaphore,
+ * against the single LinkedBlockingDeque that it replaced.
+ * Each benchmark thread is a WorkerProxy; 2 WorkerProxies share a ComputerProxy.
+ * A WorkerProxy takes a Fibonacci-like task and makes its 2 children ready,
+ * as the Space does with a ReturnDecomposition; when there is no ready task,
+ * it makes a new root task ready, as a client's submit does.
+ * The scheduler's own cost is measured: tasks are not executed.
+ * SpaceJobBenchmark measures whole Fibonacci and TSP jobs.
+ * @author Peter Cappello
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class ReadyTasksBenchmark
+{
+    static final private int ROOT_N = 20;
+    static final private int WORKER_PROXIES_PER_COMPUTER = 2;
+    
+    private ReadyTasks readyTasks;
+    private Semaphore numReadyTasks;
+    private LinkedBlockingDeque<Task> singleDeque;
+    
+    @Setup( Level.Iteration )
+    public void setup()
+    {
+        readyTasks = new WorkStealingReadyTasks();
+        numReadyTasks = new Semaphore( 0 );
+        singleDeque = new LinkedBlockingDeque<>();
+    }
+    
+    @State( Scope.Thread )
+    public static class WorkerProxy
+    {
+        int computerId;
+    
+        @Setup( Level.Trial )
+        public void setup( ThreadParams threadParams )
+        {
+            computerId = threadParams.getThreadIndex() / WORKER_PROXIES_PER_COMPUTER;
+        }
+    }
+    
+    @Benchmark
+    public Task workStealing( WorkerProxy workerProxy )
+    {
+        if ( ! numReadyTasks.tryAcquire() )
+        {
+            readyTasks.add( new TaskNode( ROOT_N ), ReadyTasks.NO_COMPUTER );
+            numReadyTasks.release();
+            return null;
+        }
+        final TaskNode task = (TaskNode) readyTasks.poll( workerProxy.computerId );
+        if ( task == null )
+        {   // a concurrent steal moved it: the permit stays with it.
+            numReadyTasks.release();
+            return null;
+        }
+        if ( task.n > 1 )
+        {
+            readyTasks.add( new TaskNode( task.n - 1 ), workerProxy.computerId );
+            numReadyTasks.release();
+            readyTasks.add( new TaskNode( task.n - 2 ), workerProxy.computerId );
+            numReadyTasks.release();
+        }
+        return task;
+    }
+    
+    @Benchmark
+    public Task singleDeque()
+    {
+        final TaskNode task = (TaskNode) singleDeque.pollFirst();
+        if ( task == null )
+        {
+            singleDeque.addFirst( new TaskNode( ROOT_N ) );
+            return null;
+        }
+        if ( task.n > 1 )
+        {
+            singleDeque.addFirst( new TaskNode( task.n - 1 ) );
+            singleDeque.addFirst( new TaskNode( task.n - 2 ) );
+        }
+        return task;
+    }
+    
+    static final private class TaskNode extends Task
+    {
+        static final private long serialVersionUID = 1L;
+        
+        final private int n;
+    
+        TaskNode( int n ) { this.n = n; }
+    
+        @Override
+        public Return call() { throw new UnsupportedOperationException(); }
+    }
+    
+    /**
+     * Run the benchmarks with 1, 4, 16, and 64 WorkerProxies.
+     * @param args unused.
+     * @throws Exception
+     */
+    public static void main( String[] args ) throws Exception
+    {
+        for ( int numWorkerProxies : new int[]{ 1, 4, 16, 64 } )
+        {
+            new Runner( new OptionsBuilder().include( ReadyTasksBenchmark.class.getSimpleName() )
+                                            .threads( numWorkerProxies )
+                                            .build() ).run();
+        }
+    }
+}
+    
\ No newline at end of file
@@ -0,0 +1,211 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Peter Cappello.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package system;
+
+import api.JobContext;
+import api.ReturnValue;
+import api.Shared;
+import applications.tsp.LowerBoundNearestNeighbors;
+import applications.tsp.SharedTour;
+import applications.tsp.TaskTsp;
+import applications.tsp.TspContext;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.LogManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import util.Graph;
+
+/**
+ * Run time, in ms, of a TSP job on a Space with NUM_COMPUTERS in-process stand-in computers,
+ * when shorter tours propagate between computers, and when each computer is isolated:
+ * it gets its job's initial shared object, but no later one, and the Space gets none of its own.
+ * Isolated computers thus prune only by the tours that they find themselves, 
+ * as when bound improvements were lost.
+ * The job searches Graph.makeGraph( numCities, seed ) from the greedy tour under the nearest neighbors lower bound.
+ * Each job starts with a cold dominance memo; after each job, the number of tasks dispatched is printed.
+ * @author Peter Cappello
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.SingleShotTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 1 )
+@Measurement( iterations = 10 )
+@Fork( 1 )
+public class SharedPropagationBenchmark
+{
+    static final private int NUM_COMPUTERS = 4;
+    static final private int NUM_CITIES = 18;
+    static final private int NUM_OTHER_CITIES = 10;
+    
+    @Param( { "1", "2", "3", "4" } )
+    public int seed;
+    
+    @Param( { "isolated", "propagated" } )
+    public String sharing;
+    
+    final private AtomicLong numTasksDispatched = new AtomicLong();
+    private SpaceImpl space;
+    private TspContext context;
+    private List<Integer> greedyTour;
+    private TspContext otherContext;
+    
+    @Setup( Level.Trial )
+    public void setup() throws RemoteException
+    {
+        LogManager.getLogManager().reset(); // the Space logs each job's metrics
+        space = new SpaceImpl();
+        final boolean isolated = sharing.equals( "isolated" );
+        for ( int i = 0; i < NUM_COMPUTERS; i++ )
+        {
+            final ComputerImpl computer = new ComputerImpl( isolated ? new IsolatedSpace( space ) : space );
+            space.register( new StandInComputer( computer, isolated ), 1 );
+        }
+        context = new TspContext( Graph.makeGraph( NUM_CITIES, seed ) );
+        greedyTour = Graph.greedyTour( context.distances() );
+        otherContext = new TspContext( Graph.makeGraph( NUM_OTHER_CITIES, seed ) );
+    }
+    
+    /**
+     * Run a small job on another graph, whose dominance memo replaces the measured graph's:
+     * each measured job starts with a cold memo, so it prunes only by what it finds itself.
+     */
+    @Setup( Level.Invocation )
+    public void start() 
+    { 
+        compute( otherContext, Graph.greedyTour( otherContext.distances() ) );
+        numTasksDispatched.set( 0 ); 
+    }
+    
+    @Benchmark
+    public ReturnValue<?> compute() { return compute( context, greedyTour ); }
+    
+    private ReturnValue<?> compute( TspContext context, List<Integer> greedyTour )
+    {
+        return space.compute( new TaskTsp( context, new LowerBoundNearestNeighbors( context.distances() ) ), 
+                              new SharedTour( greedyTour, context.distances().tourDistance( greedyTour ) ), context );
+    }
+    
+    @TearDown( Level.Invocation )
+    public void report()
+    {
+        System.out.printf( "%n%s, n=%d seed=%d: %d tasks dispatched%n", 
+                           sharing, NUM_CITIES, seed, numTasksDispatched.get() );
+    }
+    
+    /**
+     * A Computer's view of the Space that drops the shared objects that the Computer offers.
+     */
+    static final private class IsolatedSpace implements ComputerSpace
+    {
+        final private ComputerSpace space;
+        
+        IsolatedSpace( ComputerSpace space ) { this.space = space; }
+        
+        @Override
+        public void register( Computer computer, int numWorkerProxies ) throws RemoteException
+        {
+            space.register( computer, numWorkerProxies );
+        }
+
+        @Override
+        public void upShared( Shared<?> shared ) {}
+
+        @Override
+        public JobContext context( long contextId ) throws RemoteException { return space.context( contextId ); }
+    }
+    
+    /**
+     * A stand-in for a remote computer that counts the tasks it executes.
+     * When isolated, it drops each shared object after its job's first, 
+     * and the shared objects that piggyback on batches and their returns.
+     */
+    final private class StandInComputer implements Computer
+    {
+        final private ComputerImpl computer;
+        final private boolean isolated;
+        
+        StandInComputer( ComputerImpl computer, boolean isolated ) 
+        { 
+            this.computer = computer; 
+            this.isolated = isolated;
+        }
+        
+        @Override
+        public Return execute( Task task ) throws RemoteException 
+        { 
+            numTasksDispatched.incrementAndGet();
+            return computer.execute( task ); 
+        }
+
+        @Override
+        public List<Return> executeBatch( List<Task> tasks, boolean spaceHasIdleWorkers ) throws RemoteException
+        {
+            numTasksDispatched.addAndGet( tasks.size() );
+            if ( ! isolated )
+            {
+                return computer.executeBatch( tasks, spaceHasIdleWorkers );
+            }
+            return new ArrayList<>( computer.executeBatch( new ArrayList<>( tasks ), spaceHasIdleWorkers ) );
+        }
+
+        @Override
+        public void downShared( Shared<?> shared ) throws RemoteException 
+        { 
+            if ( ! isolated || computer.shared( (int) shared.epoch() ) == null )
+            {
+                computer.downShared( shared ); 
+            }
+        }
+
+        @Override
+        public void jobDone( int jobId ) throws RemoteException { computer.jobDone( jobId ); }
+    }
+    
+    /**
+     * Run the benchmark.
+     * @param args unused.
+     * @throws Exception
+     */
+    public static void main( String[] args ) throws Exception
+    {
+        new Runner( new OptionsBuilder().include( SharedPropagationBenchmark.class.getSimpleName() ).build() ).run();
+    }
+}
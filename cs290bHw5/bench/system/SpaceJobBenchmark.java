@@ -0,0 +1,110 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Peter Cappello.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package system;
+
+import api.ReturnValue;
+import applications.fibonacci.TaskFibonacci;
+import applications.tsp.SharedTour;
+import applications.tsp.TaskTsp;
+import applications.tsp.TspContext;
+import java.rmi.RemoteException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.LogManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import util.Graph;
+
+/**
+ * Job run time, in ms, of whole jobs on a Space with in-process Computers:
+ * the task mix that the scheduler sees in use, rather than ReadyTasksBenchmark's synthetic one.
+ * A Fibonacci job has many tiny tasks; a TSP job has fewer, larger, and prunable ones.
+ * Run it on 2 checkouts to compare their schedulers.
+ * @author Peter Cappello
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class SpaceJobBenchmark
+{
+    static final private int FIBONACCI_N = 24;
+    static final private int NUM_CITIES = 14;
+    static final private int SEED = 2;
+    
+    @Param( { "fibonacci", "tsp" } )
+    public String job;
+    
+    @Param( { "1", "4" } )
+    public int numComputers;
+    
+    private SpaceImpl space;
+    private TspContext context;
+    private List<Integer> greedyTour;
+    
+    @Setup
+    public void setup() throws RemoteException
+    {
+        LogManager.getLogManager().reset(); // the Space logs each job's metrics
+        space = new SpaceImpl();
+        for ( int i = 0; i < numComputers; i++ )
+        {
+            space.register( new ComputerImpl( space ), 1 );
+        }
+        context = new TspContext( Graph.makeGraph( NUM_CITIES, SEED ) );
+        greedyTour = Graph.greedyTour( context.distances() );
+    }
+    
+    @Benchmark
+    public ReturnValue<?> compute()
+    {
+        return job.equals( "fibonacci" ) 
+                ? space.compute( new TaskFibonacci( FIBONACCI_N ) )
+                : space.compute( new TaskTsp( context ), 
+                                 new SharedTour( greedyTour, context.distances().tourDistance( greedyTour ) ), context );
+    }
+    
+    /**
+     * Run the benchmark.
+     * @param args unused.
+     * @throws Exception
+     */
+    public static void main( String[] args ) throws Exception
+    {
+        new Runner( new OptionsBuilder().include( SpaceJobBenchmark.class.getSimpleName() ).build() ).run();
+    }
+}
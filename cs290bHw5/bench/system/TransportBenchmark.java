@@ -0,0 +1,111 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Peter Cappello.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package system;
+
+import applications.fibonacci.TaskFibonacci;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.rmi.RemoteException;
+import java.rmi.server.RemoteObject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.LogManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import static system.Configuration.WIRE_CODECS;
+
+/**
+ * Round trip time, in us, of an executeBatch call over localhost: 
+ * by an NioLink, as NioComputer sends it, against by RMI, through the Computer's stub.
+ * The batch's tasks are Fibonacci leaves, so the round trip is nearly all transport.
+ * Both ends are in 1 JVM, but each call crosses a loopback socket.
+ * @author Peter Cappello
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 10, time = 1 )
+@Fork( 1 )
+public class TransportBenchmark
+{
+    @Param( { "1", "16", "64" } )
+    public int batchSize;
+    
+    private List<Task> batch;
+    private ComputerImpl computer; // exported while the benchmark holds it
+    private Computer rmiComputer;
+    private NioLink spaceLink;
+    
+    @Setup
+    public void setup() throws IOException
+    {
+        LogManager.getLogManager().reset();
+        final List<Task> tasks = new ArrayList<>();
+        for ( int i = 0; i < batchSize; i++ )
+        {
+            tasks.add( new TaskFibonacci( 1 ) );
+        }
+        batch = WIRE_CODECS ? new WireList<>( tasks ) : tasks;
+        computer = new ComputerImpl( new SpaceImpl() );
+        rmiComputer = (Computer) RemoteObject.toStub( computer );
+        
+        final ServerSocketChannel server = ServerSocketChannel.open();
+        server.bind( new InetSocketAddress( "localhost", 0 ) );
+        final NioSpace nioSpace = new NioSpace( "localhost", server.socket().getLocalPort() );
+        spaceLink = new NioLink( server.accept(), ( type, payload ) -> null ); // the Space's end: it accepts the HELLO
+        spaceLink.start();
+        nioSpace.register( new ComputerImpl( nioSpace ), 1 );
+        server.close();
+    }
+    
+    @Benchmark
+    public Object rmi() throws RemoteException { return rmiComputer.executeBatch( batch, false ); }
+    
+    @Benchmark
+    public Object nio() throws IOException { return spaceLink.call( NioLink.EXECUTE_BATCH, new Object[]{ batch, false } ); }
+    
+    /**
+     * Run the benchmarks.
+     * @param args unused.
+     * @throws Exception
+     */
+    public static void main( String[] args ) throws Exception
+    {
+        new Runner( new OptionsBuilder().include( TransportBenchmark.class.getSimpleName() ).build() ).run();
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Peter Cappello.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package system;
+
+import api.ReturnDecomposition;
+import applications.fibonacci.TaskFibonacci;
+import applications.mandelbrotset.TaskMandelbrotSet;
+import applications.tsp.SharedTour;
+import applications.tsp.TaskTsp;
+import applications.tsp.TspContext;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.LogManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import util.Graph;
+
+/**
+ * Round trip time, in us, of a batch through an ObjectOutputStream and back: 
+ * as a WireList, whose elements are encoded by their registered codecs, 
+ * against the ArrayList that executeBatch sent before.
+ * The batches are of the tasks and returns of Fibonacci, TSP, and Mandelbrot jobs,
+ * made by calling the tasks, as a computer does.
+ * main prints each batch's size, in bytes per element, before running the benchmarks.
+ * @author Peter Cappello
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class WireListBenchmark
+{
+    static final private int NUM_CITIES = 14;
+    static final private int SEED = 8;
+    static final private int JOB_ID = 1;
+    static final private int MANDELBROT_PIXELS = 32;
+    static final private int ITERATION_LIMIT = 512;
+    
+    @Param( { "fibonacciTasks", "fibonacciReturns", "tspDecomposition", "tspTasks", "tspReturns", 
+              "mandelbrotTask", "mandelbrotReturn" } )
+    public String batch;
+    
+    private List<Object> elements;
+    
+    @Setup
+    public void setup() throws Exception { elements = batch( batch ); }
+    
+    @Benchmark
+    public Object java() throws Exception { return roundTrip( new ArrayList<>( elements ) ); }
+    
+    @Benchmark
+    public Object wire() throws Exception { return roundTrip( new WireList<>( elements ) ); }
+    
+    static private List<Object> batch( String batch ) throws Exception
+    {
+        final List<Object> elements = new ArrayList<>();
+        switch ( batch )
+        {
+            case "fibonacciTasks":
+                for ( int n = 10; n < 26; n++ )
+                {
+                    elements.add( new TaskFibonacci( n ) );
+                }
+                return elements;
+            case "fibonacciReturns":
+                for ( int i = 0; i < 16; i++ )
+                {
+                    elements.add( new TaskFibonacci( i % 2 ).call() );
+                }
+                return elements;
+            case "tspDecomposition":
+                return Collections.singletonList( tspDecomposition() );
+            case "tspTasks":
+                elements.addAll( tspDecomposition().tasks() );
+                return elements;
+            case "tspReturns":
+                for ( Task task : tspDecomposition().tasks().subList( 0, 4 ) )
+                {
+                    elements.add( task.call() );
+                }
+                return elements;
+            case "mandelbrotTask":
+                return Collections.singletonList( mandelbrotTask() );
+            case "mandelbrotReturn":
+                return Collections.singletonList( mandelbrotTask().call() );
+            default:
+                throw new IllegalArgumentException( batch );
+        }
+    }
+    
+    /**
+     * @return the decomposition of the root task of a NUM_CITIES city TSP job, whose children share a computer.
+     */
+    static private ReturnDecomposition tspDecomposition() throws Exception
+    {
+        LogManager.getLogManager().reset();
+        final ComputerImpl computer = new ComputerImpl( new SpaceImpl() );
+        final TspContext context = new TspContext( Graph.makeGraph( NUM_CITIES, SEED ) );
+        final List<Integer> greedyTour = Graph.greedyTour( context.distances() );
+        final SharedTour shared = new SharedTour( greedyTour, context.distances().tourDistance( greedyTour ) );
+        shared.epoch( JOB_ID );
+        computer.downShared( shared );
+        final TaskTsp task = new TaskTsp( context );
+        task.computer( computer );
+        task.jobId( JOB_ID );
+        final ReturnDecomposition decomposition = (ReturnDecomposition) task.call();
+        for ( Task child : decomposition.tasks() )
+        {
+            child.computer( computer );
+            child.jobId( JOB_ID );
+        }
+        return decomposition;
+    }
+    
+    static private TaskMandelbrotSet mandelbrotTask()
+    {
+        return new TaskMandelbrotSet( TaskMandelbrotSet.LOWER_LEFT_X, TaskMandelbrotSet.LOWER_LEFT_Y, 
+                                      TaskMandelbrotSet.EDGE_LENGTH, MANDELBROT_PIXELS, ITERATION_LIMIT );
+    }
+    
+    static private byte[] serialize( Object object ) throws IOException
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try ( ObjectOutputStream out = new ObjectOutputStream( bytes ) ) { out.writeObject( object ); }
+        return bytes.toByteArray();
+    }
+    
+    static private Object roundTrip( Object object ) throws Exception
+    {
+        try ( ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( serialize( object ) ) ) )
+        {
+            return in.readObject();
+        }
+    }
+    
+    /**
+     * Print the batches' sizes, then run the benchmarks.
+     * @param args unused.
+     * @throws Exception
+     */
+    public static void main( String[] args ) throws Exception
+    {
+        for ( String batch : WireListBenchmark.class.getField( "batch" ).getAnnotation( Param.class ).value() )
+        {
+            final List<Object> elements = batch( batch );
+            System.out.printf( "%s x%d: java %d B/element, wire %d B/element%n", batch, elements.size(),
+                               serialize( new ArrayList<>( elements ) ).length / elements.size(), 
+                               serialize( new WireList<>( elements ) ).length / elements.size() );
+        }
+        new Runner( new OptionsBuilder().include( WireListBenchmark.class.getSimpleName() ).build() ).run();
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Peter Cappello.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package system;
+
+import api.ReturnValue;
+import api.Shared;
+import applications.fibonacci.TaskFibonacci;
+import java.lang.management.ManagementFactory;
+import java.rmi.RemoteException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.LogManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Job latency, in ms, on a Space with many computers: sampled, so JMH reports its percentiles.
+ * Each computer is a stand-in of NUM_PROCESSORS processors that adds BATCH_DELAY to each call, 
+ * as a remote computer's round trip would, and delegates to 1 shared ComputerImpl.
+ * A 1-task job measures dispatch latency; a Fibonacci job, throughput.
+ * The Space's number of threads, once its computers are registered, is printed for each setup.
+ * Run it with Configuration.ADAPTIVE_WORKERS false, then true, to compare WorkerProxies with batch threads:
+ * a compile-time constant, so clean the build between runs.
+ * @author Peter Cappello
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.SampleTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class WorkersBenchmark
+{
+    static final private int NUM_PROCESSORS = 4;
+    static final private long BATCH_DELAY = 1; // ms
+    static final private int FIBONACCI_N = 22;
+    
+    @Param( { "10", "100" } )
+    public int numComputers;
+    
+    private SpaceImpl space;
+    
+    @Setup
+    public void setup() throws RemoteException
+    {
+        LogManager.getLogManager().reset();
+        space = new SpaceImpl();
+        final ComputerImpl computer = new ComputerImpl( space );
+        for ( int i = 0; i < numComputers; i++ )
+        {
+            space.register( new DelayedComputer( computer ), NUM_PROCESSORS );
+        }
+        System.out.printf( "%nADAPTIVE_WORKERS %b, %d computers: %d threads%n", Configuration.ADAPTIVE_WORKERS, 
+                           numComputers, ManagementFactory.getThreadMXBean().getThreadCount() );
+    }
+    
+    @Benchmark
+    public ReturnValue<?> singleTask() { return space.compute( new TaskFibonacci( 1 ) ); }
+    
+    @Benchmark
+    public ReturnValue<?> fibonacci() { return space.compute( new TaskFibonacci( FIBONACCI_N ) ); }
+    
+    /**
+     * A stand-in for a remote computer.
+     */
+    static final private class DelayedComputer implements Computer
+    {
+        final private Computer computer;
+        
+        DelayedComputer( Computer computer ) { this.computer = computer; }
+        
+        @Override
+        public Return execute( Task task ) throws RemoteException 
+        { 
+            delay();
+            return computer.execute( task ); 
+        }
+
+        @Override
+        public List<Return> executeBatch( List<Task> tasks, boolean spaceHasIdleWorkers ) throws RemoteException
+        {
+            delay();
+            return computer.executeBatch( tasks, spaceHasIdleWorkers );
+        }
+
+        @Override
+        public void downShared( Shared<?> shared ) throws RemoteException { computer.downShared( shared ); }
+
+        @Override
+        public void jobDone( int jobId ) throws RemoteException { computer.jobDone( jobId ); }
+        
+        private void delay()
+        {
+            try { Thread.sleep( BATCH_DELAY ); } 
+            catch ( InterruptedException ex ) { Thread.currentThread().interrupt(); }
+        }
+    }
+    
+    /**
+     * Run the benchmarks.
+     * @param args unused.
+     * @throws Exception
+     */
+    public static void main( String[] args ) throws Exception
+    {
+        new Runner( new OptionsBuilder().include( WorkersBenchmark.class.getSimpleName() ).build() ).run();
+    }
+}
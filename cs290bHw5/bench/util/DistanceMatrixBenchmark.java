@@ -0,0 +1,119 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Peter Cappello.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package util;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Lookup time, in ns, of a distance from a DistanceMatrix, against computing it 
+ * from the cities' coordinates with EuclideanGraph.distance, as the TSP tasks did before.
+ * The lookups are near the diagonal: each is of a random city and one of its MAX_OFFSET successors,
+ * as a search's lookups are of nearby cities.
+ * Up to DistanceMatrix.MAX_DENSE_CITIES cities, the matrix is dense; beyond, it computes each distance.
+ * @author Peter Cappello
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class DistanceMatrixBenchmark
+{
+    static final private int NUM_LOOKUPS = 1 << 20;
+    static final private int MAX_OFFSET = 16;
+    static final private int SEED = 8;
+    
+    @Param( { "20", "1000", "2048", "10000" } )
+    public int numCities;
+    
+    private double[][] cities;
+    private DistanceMatrix distances;
+    private int[] cities1;
+    private int[] cities2;
+    
+    @Setup
+    public void setup()
+    {
+        cities = Graph.makeGraph( numCities, SEED );
+        distances = DistanceMatrix.make( cities );
+        cities1 = new int[ NUM_LOOKUPS ];
+        cities2 = new int[ NUM_LOOKUPS ];
+        final Random random = new Random( SEED );
+        for ( int i = 0; i < NUM_LOOKUPS; i++ )
+        {
+            cities1[ i ] = random.nextInt( numCities );
+            cities2[ i ] = ( cities1[ i ] + 1 + random.nextInt( MAX_OFFSET ) ) % numCities;
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation( NUM_LOOKUPS )
+    public double matrix()
+    {
+        double sum = 0;
+        for ( int i = 0; i < NUM_LOOKUPS; i++ )
+        {
+            sum += distances.distance( cities1[ i ], cities2[ i ] );
+        }
+        return sum;
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation( NUM_LOOKUPS )
+    public double sqrt()
+    {
+        double sum = 0;
+        for ( int i = 0; i < NUM_LOOKUPS; i++ )
+        {
+            sum += EuclideanGraph.distance( cities[ cities1[ i ] ], cities[ cities2[ i ] ] );
+        }
+        return sum;
+    }
+    
+    /**
+     * Run the benchmarks.
+     * @param args unused.
+     * @throws Exception
+     */
+    public static void main( String[] args ) throws Exception
+    {
+        new Runner( new OptionsBuilder().include( DistanceMatrixBenchmark.class.getSimpleName() ).build() ).run();
+    }
+}
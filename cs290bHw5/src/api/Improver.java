@@ -0,0 +1,43 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR ONE PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package api;
+
+import java.rmi.RemoteException;
+
+/**
+ * A heuristic that runs alongside a job, on a spare core of the client,
+ * pushing each better shared object that it finds to the Space.
+ * @author Peter Cappello
+ */
+public interface Improver 
+{
+    /**
+     * Improve the job's shared object until interrupted or out of ideas.
+     * Each shared object pushed via space.upShared must be stamped with the job's id as its epoch.
+     * @param space the Space that runs the job.
+     * @param jobId the id of the job.
+     * @throws RemoteException
+     */
+    void improve( Space space, int jobId ) throws RemoteException;
+}
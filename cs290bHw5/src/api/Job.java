@@ -0,0 +1,111 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a replaceWith
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, replaceWith, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package api;
+
+import java.rmi.RemoteException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import system.Task;
+
+/**
+ * A handle for a job submitted to a Space.
+ * Its result completes when the Space returns the job's result; 
+ * cancelling its result cancels the job in the Space.
+ * @author Peter Cappello
+ * @param <T> type of the job's value.
+ */
+public class Job<T>
+{
+    static final private ExecutorService TAKERS = Executors.newCachedThreadPool( runnable -> 
+    {
+        final Thread thread = new Thread( runnable, "Job taker" );
+        thread.setDaemon( true );
+        return thread;
+    } );
+    
+    final private Space space;
+    final private int id;
+    final private CompletableFuture<ReturnValue<T>> result = new CompletableFuture<>();
+    
+    /**
+     * Submit a job to a Space.
+     * @param space the Space that computes the job.
+     * @param task the job's root task.
+     * @param shared the job's initial shared object, or null if it has none.
+     * @param context the job's immutable context, or null if it has none.
+     * @throws RemoteException
+     */
+    public Job( Space space, Task task, Shared<?> shared, JobContext context ) throws RemoteException
+    {
+        this.space = space;
+        id = space.submit( task, shared, context );
+        TAKERS.execute( () -> 
+        {
+            try { result.complete( take() ); }
+            catch ( Exception ex ) { result.completeExceptionally( ex ); }
+        } );
+        result.whenComplete( ( value, ex ) -> 
+        {
+            if ( result.isCancelled() )
+            {
+                cancelJob();
+            }
+        } );
+    }
+    
+    public Job( Space space, Task task ) throws RemoteException { this( space, task, null, null ); }
+    
+    public int id() { return id; }
+    
+    /**
+     * @return the job's result: cancelling it cancels the job.
+     */
+    public CompletableFuture<ReturnValue<T>> result() { return result; }
+    
+    /**
+     * Cancel the job.
+     * @return true if and only if the job was cancelled: false if it was already done.
+     */
+    public boolean cancel() { return result.cancel( false ); }
+    
+    /**
+     * @return the job's result: that of its root task, whose value is a T.
+     * @throws RemoteException
+     */
+    @SuppressWarnings( "unchecked" )
+    private ReturnValue<T> take() throws RemoteException { return (ReturnValue<T>) space.take( id ); }
+    
+    private void cancelJob()
+    {
+        try { space.cancel( id ); } 
+        catch ( RemoteException ex ) 
+        {
+            Logger.getLogger( getClass().getName() )
+                  .log( Level.WARNING, null, ex );
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a replaceWith
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, replaceWith, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Immutable data that every task of a job reads, such as a TSP instance's cities.
+ * It is registered with the Space when the job is computed, and each Computer
+ * fetches it from the Space once, when one of its tasks first asks for it.
+ * Tasks carry only its id: a hash of its serialized content.
+ * Extensions must not be mutated after they are registered.
+ * @author Peter Cappello
+ */
+abstract public class JobContext implements Serializable
+{
+    static final private long serialVersionUID = 1L;
+    static final private String HASH_ALGORITHM = "SHA-256";
+    
+    private transient long id;
+    private transient boolean hasId;
+    
+    /**
+     * @return the first 8 bytes of the SHA-256 hash of this context's serialized form.
+     */
+    synchronized public long id()
+    {
+        if ( ! hasId )
+        {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try ( ObjectOutputStream outputStream = new ObjectOutputStream( bytes ) )
+            {
+                outputStream.writeObject( this );
+            }
+            catch ( IOException ex ) { throw new UncheckedIOException( ex ); }
+            try 
+            { 
+                id = ByteBuffer.wrap( MessageDigest.getInstance( HASH_ALGORITHM ).digest( bytes.toByteArray() ) ).getLong();
+            }
+            catch ( NoSuchAlgorithmException ex ) { throw new IllegalStateException( ex ); }
+            hasId = true;
+        }
+        return id;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a replaceWith
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, replaceWith, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package api;
+
+import java.io.Serializable;
+
+/**
+ * A snapshot of a job's scheduling metrics.
+ * Wait time is the time from when a task is ready to when it is sent to a computer.
+ * @author Peter Cappello
+ */
+public class JobMetrics implements Serializable
+{
+    static final private long serialVersionUID = 1L;
+    
+    final private int jobId;
+    final private int priority;
+    final private int queueDepth;
+    final private long numTasks;
+    final private long elapsedTime;
+    final private long meanWaitTime;
+    final private long p99WaitTime;
+    final private long maxWaitTime;
+
+    /**
+     * @param jobId the job's id.
+     * @param priority the job's priority.
+     * @param queueDepth the job's number of ready tasks.
+     * @param numTasks the job's number of tasks sent to computers.
+     * @param elapsedTime nanoseconds since the job started.
+     * @param meanWaitTime mean task wait time, in nanoseconds.
+     * @param p99WaitTime an upper bound, within a factor of 2, on the 99th percentile task wait time, in nanoseconds.
+     * @param maxWaitTime maximum task wait time, in nanoseconds.
+     */
+    public JobMetrics( int jobId, int priority, int queueDepth, long numTasks, long elapsedTime, 
+                       long meanWaitTime, long p99WaitTime, long maxWaitTime )
+    {
+        this.jobId = jobId;
+        this.priority = priority;
+        this.queueDepth = queueDepth;
+        this.numTasks = numTasks;
+        this.elapsedTime = elapsedTime;
+        this.meanWaitTime = meanWaitTime;
+        this.p99WaitTime = p99WaitTime;
+        this.maxWaitTime = maxWaitTime;
+    }
+    
+    public int  jobId() { return jobId; }
+    
+    public int  priority() { return priority; }
+    
+    public int  queueDepth() { return queueDepth; }
+    
+    public long numTasks() { return numTasks; }
+    
+    /**
+     * @return tasks sent to computers per second since the job started.
+     */
+    public double throughput() { return elapsedTime == 0 ? 0 : numTasks * 1e9 / elapsedTime; }
+    
+    public long meanWaitTime() { return meanWaitTime; }
+    
+    public long p99WaitTime() { return p99WaitTime; }
+    
+    public long maxWaitTime() { return maxWaitTime; }
+    
+    @Override
+    public String toString()
+    {
+        return String.format( "Job %d, priority %d: %d ready tasks, %d tasks sent, %.0f tasks/s, wait mean %.3fms p99 <= %.3fms max %.3fms",
+                jobId, priority, queueDepth, numTasks, throughput(), meanWaitTime / 1e6, p99WaitTime / 1e6, maxWaitTime / 1e6 );
+    }
+}
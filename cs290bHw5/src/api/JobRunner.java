@@ -95,22 +95,69 @@ public class JobRunner<T> extends JFrame
      */
     public void run( final Task task ) throws RemoteException
     {
-        ReturnValue<T> returnValue = space.compute( task );
-        view( returnValue.view() );
-        Logger.getLogger( this.getClass().getCanonicalName() )
-              .log( Level.INFO, "Job run time: {0} ms.", ( System.nanoTime() - startTime ) / 1000000 );
+        view( space.compute( task ) );
+    }
+    
+    /**
+     * Run the Job: Generate the tasks, retrieve the results, compose a solution
+     * to the original problem, and display the solution.
+     * @param task the task that defines the job.
+     * @throws RemoteException occurs if there is a communication problem or
+     * the remote service is not responding
+     */
+    public void run( final Task task, Shared<?> shared ) throws RemoteException
+    {
+        view( space.compute( task, shared ) );
     }
     
     /**
      * Run the Job: Generate the tasks, retrieve the results, compose a solution
      * to the original problem, and display the solution.
      * @param task the task that defines the job.
+     * @param shared the job's initial shared object.
+     * @param context the job's immutable context, shipped once to each computer.
+     * @throws RemoteException occurs if there is a communication problem or
+     * the remote service is not responding
+     */
+    public void run( final Task task, Shared<?> shared, JobContext context ) throws RemoteException
+    {
+        view( space.compute( task, shared, context ) );
+    }
+    
+    /**
+     * Run the Job, with an Improver alongside it that is interrupted when the job is done.
+     * The Improver starts when the job is submitted: if the job waits for another job's shared object, 
+     * the Space keeps the newest shared object pushed meanwhile, for the job to start with.
+     * @param task the task that defines the job.
+     * @param shared the job's initial shared object.
+     * @param context the job's immutable context, shipped once to each computer.
+     * @param improver improves the job's shared object.
      * @throws RemoteException occurs if there is a communication problem or
      * the remote service is not responding
      */
-    public void run( final Task task, Shared shared ) throws RemoteException
+    public void run( final Task task, Shared<?> shared, JobContext context, Improver improver ) throws RemoteException
+    {
+        final int jobId = space.submit( task, shared, context );
+        final Thread improverThread = new Thread( () -> 
+        {
+            try { improver.improve( space, jobId ); } 
+            catch ( RemoteException ex ) 
+            { 
+                Logger.getLogger( this.getClass().getCanonicalName() ).log( Level.WARNING, null, ex ); 
+            }
+        }, "Improver" );
+        improverThread.setDaemon( true );
+        improverThread.start();
+        try { view( space.take( jobId ) ); }
+        finally { improverThread.interrupt(); }
+    }
+    
+    /**
+     * Display a job's result, and log the job's run time.
+     * @param returnValue the job's result.
+     */
+    private void view( final ReturnValue<?> returnValue )
     {
-        ReturnValue<T> returnValue = space.compute( task, shared );
         view( returnValue.view() );
         Logger.getLogger( this.getClass().getCanonicalName() )
               .log( Level.INFO, "Job run time: {0} ms.", ( System.nanoTime() - startTime ) / 1000000 );
@@ -24,15 +24,51 @@
 package api;
 
 import system.Task;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import system.Codec;
 import system.Return;
 import system.SpaceImpl;
+import system.Wire;
+import system.WireInput;
+import system.WireOutput;
 
 public class ReturnDecomposition extends Return
 {    
     final private TaskCompose compose;
     final private List<? extends Task> tasks;
     
+    static
+    {
+        Wire.register( ReturnDecomposition.class, new Codec<ReturnDecomposition>()
+        {
+            @Override
+            public void write( final WireOutput out, final ReturnDecomposition decomposition ) throws IOException 
+            {
+                out.writeObject( decomposition.compose );
+                out.writeVarInt( decomposition.tasks.size() );
+                for ( Task task : decomposition.tasks )
+                {
+                    out.writeObject( task );
+                }
+            }
+
+            @Override
+            public ReturnDecomposition read( final WireInput in ) throws IOException, ClassNotFoundException 
+            {
+                final TaskCompose<?> compose = (TaskCompose<?>) in.readObject();
+                final int numTasks = in.readVarInt();
+                final List<Task> tasks = new ArrayList<>( numTasks );
+                for ( int i = 0; i < numTasks; i++ )
+                {
+                    tasks.add( (Task) in.readObject() );
+                }
+                return new ReturnDecomposition( compose, tasks );
+            }
+        } );
+    }
+    
     public ReturnDecomposition( TaskCompose compose, List<? extends Task> tasks )
     {
         this.compose = compose;
@@ -55,15 +91,24 @@ public class ReturnDecomposition extends Return
         compose.id( composeId );
         compose.composeId( parentTask.composeId() );
         compose.composeArgNum( parentTask.composeArgNum() );
+        compose.contextId( parentTask.contextId() );
+        compose.jobId( parentTask.jobId() );
         compose.numArgs( tasks.size() );
-        space.putCompose( compose );
         compose.decomposeTaskRunTime( taskRunTime() );
+        if ( tasks.isEmpty() )
+        {   // no arg will ever arrive: the compose task is ready now.
+            space.addReadyCompose( compose );
+            return;
+        }
+        space.putCompose( compose );
         for ( int i = 0; i < tasks.size(); i++  )
         {
             Task task = tasks.get( i );
             task.id( space.makeTaskId() );
             task.composeId( composeId );
             task.composeArgNum( i );
+            task.contextId( parentTask.contextId() );
+            task.jobId( parentTask.jobId() );
             space.addReadyTask( task ); 
         }
     }
@@ -47,11 +47,28 @@ abstract public class ReturnValue<T> extends Return
         this.value = value; 
     }
     
+    /**
+     * For codecs, which restore a ReturnValue without its task.
+     * @param composeId
+     * @param composeArgNum
+     * @param value 
+     */
+    protected ReturnValue( final int composeId, final int composeArgNum, final T value )
+    {
+        this.composeId = composeId;
+        this.composeArgNum = composeArgNum;
+        this.value = value;
+    }
+    
     public T value() { return value; }
+    
+    public int composeId() { return composeId; }
+    
+    public int composeArgNum() { return composeArgNum; }
    
     /**
      * Update the taskCompose task that is waiting for this input.
-     * @param associatedTask unused - the task whose Result is to be processed.
+     * @param associatedTask the task whose Result is to be processed.
      * @param space containing the taskCompose task that is waiting for this value.
      */
     @Override
@@ -64,21 +81,22 @@ abstract public class ReturnValue<T> extends Return
             t1(   commonTime + task.sumChildT1() );
             tInf( commonTime + task.maxChildTInf() );
         }
-        else
-        {
-            t1(   taskRunTime() );
-            tInf( taskRunTime() );
-        }
+        // otherwise, t1 & tInf were measured by the Computer that executed the task.
         if ( composeId == SpaceImpl.FINAL_RETURN_VALUE )
         {
-            space.putResult( this );
+            space.putResult( associatedTask.jobId(), this );
             return;
         }
         TaskCompose taskCompose = space.getCompose( composeId );
-        assert taskCompose != null;
-        taskCompose.arg( composeArgNum, value, space );
+        if ( taskCompose == null )
+        {   // its job was cancelled, or is done.
+            assert space.isCancelled( associatedTask.jobId() ) || space.isDone( associatedTask.jobId() );
+            return;
+        }
+        // child times must be in place before the last arg readies the compose task.
         taskCompose.sumChildT1( t1() );
         taskCompose.maxChildTInf( tInf() );
+        taskCompose.arg( composeArgNum, value, space );
     }
     
     abstract public JLabel view();
@@ -26,43 +26,60 @@ package api;
 import java.io.Serializable;
 
 /**
- * This mutable class and its extensions must synchronize all methods.
+ * A job's shared state, in 2 tiers.
+ * The first tier is the little that tasks read, such as a bound, which crosses the wire 
+ * between Space and computers. The second tier, such as the solution that attains the bound,
+ * stays where it was made: the Space completes the job's result with it.
+ * 
+ * A shared object is immutable once it is shared: a newer state is a new object, 
+ * which replaces the older one, so its readers need no lock.
+ * Its epoch is the id of the job whose state it is, stamped by the Space 
+ * when the job starts, by a computer on each shared object that its tasks make,
+ * and by an Improver on each shared object that it makes.
  * @author Peter Cappello
  * @param <T> the shared object's type.
  */
-abstract public class Shared<T extends Shared> implements Serializable
+abstract public class Shared<T extends Shared<T>> implements Serializable
 {        
-    private T shared;
+    private long epoch;
     
-    synchronized public T shared() { return shared; }
+    public long epoch() { return epoch; }
     
     /**
-     * Is this shared object older that that shared object?
-     * Implementation must synchronize on this.
-     * @param that should not be null.
-     * @return true if and only if this is older than that.
+     * Stamp this shared object, before it is shared.
+     * @param epoch the id of the job whose state it is.
      */
-    abstract public boolean isOlderThan( final T that );
+    public void epoch( long epoch ) { this.epoch = epoch; }
     
-    synchronized public boolean shared( final T that )
-    {
-        if ( this.isOlderThan( that ) )
-        {
-            replaceWith( that );
-            return true;
-        }
-        return false;
+    /**
+     * Is this shared object older than that shared object: 
+     * of an earlier epoch or, of the same epoch, improved upon by that?
+     * @param that should not be null: of the same type as this if it is of the same epoch, the same job.
+     * @return true if and only if this is older than that.
+     */
+    @SuppressWarnings( "unchecked" )
+    final public boolean isOlderThan( final Shared<?> that ) 
+    { 
+        return epoch < that.epoch() || epoch == that.epoch() && isImprovedBy( (T) that ); 
     }
     
     /**
-     * Give this shared the state of that shared.
-     * @param that
+     * @param that a shared object of the same epoch.
+     * @return true if and only if that is an improvement upon this.
+     */
+    abstract protected boolean isImprovedBy( final T that );
+    
+    /**
+     * @return the first tier of this shared object, of the same epoch: this, unless overridden.
      */
-    abstract public void replaceWith( final T that );
+    @SuppressWarnings( "unchecked" )
+    public T bound() { return (T) this; }
     
     /**
-     * Duplicate this Shared object.
-     * @return the duplicate.
+     * Complete a job's result with the second tier of this shared object:
+     * the newest of the job's shared objects that has one.
+     * @param result the result of the job's root task.
+     * @return the completed result: result, unless overridden.
      */
-    abstract public Shared duplicate();
+    public ReturnValue<?> complete( final ReturnValue<?> result ) { return result; }
 }
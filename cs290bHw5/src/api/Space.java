@@ -25,16 +25,16 @@ package api;
 
 import system.Task;
 import system.Return;
-import java.rmi.Remote;
 import java.rmi.RemoteException;
 import java.util.List;
-import system.Computer;
+import system.ComputerSpace;
 
 /**
- *
+ * The Space, as its clients see it. Improvers offer shared objects via upShared, 
+ * as Computers do.
  * @author Peter Cappello
  */
-public interface Space extends Remote 
+public interface Space extends ComputerSpace 
 {
     /**
      * The port used by the RMI registry.
@@ -45,6 +45,11 @@ public interface Space extends Remote
      * The service name associated with this Remote interface.
      */
     public static String SERVICE_NAME = "Space";
+    
+    /**
+     * The priority of a job submitted without one.
+     */
+    public static int DEFAULT_PRIORITY = 1;
 
     /**
      *
@@ -52,9 +57,66 @@ public interface Space extends Remote
      * @return the task's execute method return value.
      * @throws RemoteException
      */
-    ReturnValue compute( final Task task ) throws RemoteException;
+    ReturnValue<?> compute( final Task task ) throws RemoteException;
+    
+    ReturnValue<?> compute( Task task, Shared<?> shared ) throws RemoteException;
+    
+    /**
+     * Register the job's context, then compute the task.
+     * @param task to be computed.
+     * @param shared the job's initial shared object.
+     * @param context the job's immutable context, read by its tasks via Task.context().
+     * @return the task's return value.
+     * @throws RemoteException
+     */
+    ReturnValue<?> compute( Task task, Shared<?> shared, JobContext context ) throws RemoteException;
     
-    ReturnValue compute( Task task, Shared shared ) throws RemoteException;
+    /**
+     * Submit a job, without waiting for its result. 
+     * Jobs run concurrently, each with its own shared object, if any.
+     * @param task the job's root task.
+     * @param shared the job's initial shared object, or null if it has none.
+     * @param context the job's immutable context, or null if it has none.
+     * @return the job's id.
+     * @throws RemoteException
+     */
+    int submit( Task task, Shared<?> shared, JobContext context ) throws RemoteException;
+    
+    /**
+     * Submit a job with a priority: jobs with ready tasks are sent tasks 
+     * in proportion to their priorities.
+     * @param task the job's root task.
+     * @param shared the job's initial shared object, or null if it has none.
+     * @param context the job's immutable context, or null if it has none.
+     * @param priority the job's priority: a positive integer.
+     * @return the job's id.
+     * @throws RemoteException
+     */
+    int submit( Task task, Shared<?> shared, JobContext context, int priority ) throws RemoteException;
+    
+    /**
+     * @param jobId the id of a submitted job whose result is not yet taken.
+     * @return the job's scheduling metrics, or null if there is no such job.
+     * @throws RemoteException
+     */
+    JobMetrics metrics( int jobId ) throws RemoteException;
+    
+    /**
+     * Wait for a submitted job's result. 
+     * @param jobId the id of the job.
+     * @return the job's root task's return value.
+     * @throws java.util.concurrent.CancellationException if the job was cancelled.
+     * @throws RemoteException
+     */
+    ReturnValue<?> take( int jobId ) throws RemoteException;
+    
+    /**
+     * Cancel a submitted job: its tasks are discarded.
+     * @param jobId the id of the job.
+     * @return true if and only if the job was cancelled: false if it was already done.
+     * @throws RemoteException
+     */
+    boolean cancel( int jobId ) throws RemoteException;
     
     /**
      *
@@ -70,20 +132,10 @@ public interface Space extends Remote
      */
     void addAll ( final List<Task> taskList ) throws RemoteException;
     
-    /**
-     *
-     * @param computer
-     * @param numWorkerProxies
-     * @throws RemoteException
-     */
-    void register( final Computer computer, int numWorkerProxies ) throws RemoteException;
-
     /**
      *
      * @return
      * @throws RemoteException
      */
-    ReturnValue take() throws RemoteException;  
-    
-    void upShared( Shared shared ) throws RemoteException;
+    ReturnValue<?> take() throws RemoteException;  
 }
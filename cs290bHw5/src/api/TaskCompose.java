@@ -1,12 +1,16 @@
 package api;
 
-import java.rmi.RemoteException;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.io.IOException;
+import java.util.Arrays;
 import system.Task;
 import java.util.List;
-import system.Configuration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import system.Codec;
 import system.SpaceImpl;
+import system.WireInput;
+import system.WireOutput;
 
 /**
  *
@@ -15,11 +19,11 @@ import system.SpaceImpl;
  */
 public abstract class TaskCompose<I> extends Task
 {
-    private int numUnsetArgs;
-    private List<I> args;
-    private long decomposeTaskRunTime;
-    private long sumChildT1;
-    private long maxChildTinf;
+    final private AtomicInteger numUnsetArgs = new AtomicInteger();
+    final private AtomicLong sumChildT1 = new AtomicLong();
+    final private AtomicLong maxChildTinf = new AtomicLong();
+          private List<I> args;
+          private long decomposeTaskRunTime;
     
     @Override
     abstract public ReturnValue call();
@@ -28,56 +32,123 @@ public abstract class TaskCompose<I> extends Task
      *
      * @return the List of inputs.
      */
-    synchronized public List<I> args() { return args; }
+    public List<I> args() { return args; }
     
     /**
      * Set one of this task's inputs.
      * @param argNum the index of this input.
      * @param argValue the value of this input.
-     * @param space if this is the last input this task is waiting for, put
-     * the task in the space's ready task queue; remove it from the waiting task map.
+     * @param space if this is the last input this task is waiting for, 
+     * remove the task from the waiting task map; give it to the space to be executed.
      */
-    synchronized public void arg( final int argNum, final I argValue, SpaceImpl space ) 
+    public void arg( final int argNum, final I argValue, SpaceImpl space ) 
     { 
-        assert numUnsetArgs > 0 &&  argValue != null && args.get( argNum ) == null; 
-        args.set( argNum, argValue );
-        if ( --numUnsetArgs == 0 )
+        if ( arg( argNum, argValue ) )
         {
-            if ( Configuration.SPACE_CALLABLE )
-            {
-                try 
-                { 
-                    // assumes TaskCompose is SPACE_CALLABLE.
-                    space.processResult( this, space.computer().execute( this ) );
-                }
-                catch ( RemoteException ignore ) {}                 
-            }
-            else
-            {
-                space.addReadyTask( this );
-            }
             space.removeWaitingTask( id() );
+            space.addReadyCompose( this );
         }
     }
     
-    synchronized public void numArgs( int numArgs )
+    /**
+     * Set one of this task's inputs. Lock-free: each input is set by 1 thread;
+     * the countdown of unset inputs makes all inputs visible to the thread 
+     * that sets the last one.
+     * @param argNum the index of this input.
+     * @param argValue the value of this input.
+     * @return true if and only if this is the last input this task is waiting for.
+     */
+    public boolean arg( final int argNum, final I argValue ) 
+    { 
+        assert numUnsetArgs.get() > 0 &&  argValue != null && args.get( argNum ) == null; 
+        args.set( argNum, accept( argNum, argValue ) );
+        return numUnsetArgs.decrementAndGet() == 0;
+    }
+    
+    /**
+     * Accept an input as it arrives. A compose task that consumes its inputs
+     * as they arrive, rather than when it is called, overrides this, 
+     * so that it need not hold them.
+     * @param argNum the index of this input.
+     * @param argValue the value of this input.
+     * @return the value to be held as this input: not null.
+     */
+    protected I accept( final int argNum, final I argValue ) { return argValue; }
+    
+    /**
+     * A compose task whose inputs must be accepted by the Space overrides this.
+     * @return true if and only if this task may be composed by a Computer.
+     */
+    public boolean isLocallyComposable() { return true; }
+    
+    @SuppressWarnings( "unchecked" ) // I is erased: the array holds the args as Objects
+    public void numArgs( int numArgs )
     {
         assert numArgs >= 0;
-        numUnsetArgs = numArgs;
-        args = Collections.synchronizedList( new ArrayList<>( numArgs ) ) ;
-        for ( int i = 0; i < numArgs; i++ )
-        {
-            args.add( null );
-        }
+        args = Arrays.asList( (I[]) new Object[ numArgs ] );
+        numUnsetArgs.set( numArgs );
         assert args.size() == numArgs;
     }
         
     public void decomposeTaskRunTime( long time ) { decomposeTaskRunTime = time; }
     public long decomposeTaskRunTime() { return decomposeTaskRunTime; }
     
-    public long sumChildT1() { return sumChildT1; }
-    public void sumChildT1( long time ) { sumChildT1 +=  time; }
+    public long sumChildT1() { return sumChildT1.get(); }
+    public void sumChildT1( long time ) { sumChildT1.addAndGet( time ); }
+    
+    public long maxChildTInf() { return maxChildTinf.get(); }
+    public void maxChildTInf( long time ) { maxChildTinf.accumulateAndGet( time, Math::max ); }
     
-    public long maxChildTInf() { return maxChildTinf; }
-    public void maxChildTInf( long time ) { maxChildTinf = maxChildTinf < time ? time : maxChildTinf; }
+    /**
+     * A codec for a compose task class that has no fields of its own.
+     * @param <C> the compose task class.
+     * @param factory makes an instance whose TaskCompose fields the codec sets.
+     * @return the codec.
+     */
+    static public <C extends TaskCompose<?>> Codec<C> codec( final Supplier<C> factory )
+    {
+        return new Codec<C>()
+        {
+            @Override
+            public void write( final WireOutput out, final C c ) throws IOException 
+            {
+                final TaskCompose<?> compose = c; // a type variable's private fields are inaccessible
+                final List<?> args = compose.args;
+                out.writeVarInt( args == null ? -1 : args.size() );
+                if ( args != null )
+                {
+                    for ( Object arg : args )
+                    {
+                        out.writeObject( arg );
+                    }
+                }
+                out.writeVarInt( compose.numUnsetArgs.get() );
+                out.writeVarLong( compose.sumChildT1.get() );
+                out.writeVarLong( compose.maxChildTinf.get() );
+                out.writeVarLong( compose.decomposeTaskRunTime );
+            }
+
+            @Override
+            public C read( final WireInput in ) throws IOException, ClassNotFoundException 
+            {
+                final C c = factory.get();
+                @SuppressWarnings( "unchecked" ) // its args are read as Objects
+                final TaskCompose<Object> compose = (TaskCompose<Object>) c;
+                final int numArgs = in.readVarInt();
+                if ( numArgs >= 0 )
+                {
+                    compose.numArgs( numArgs );
+                    for ( int i = 0; i < numArgs; i++ )
+                    {
+                        compose.args.set( i, in.readObject() );
+                    }
+                }
+                compose.numUnsetArgs.set( in.readVarInt() );
+                compose.sumChildT1.set( in.readVarLong() );
+                compose.maxChildTinf.set( in.readVarLong() );
+                compose.decomposeTaskRunTime = in.readVarLong();
+                return c;
+            }
+        };
+    }
 }
@@ -24,9 +24,14 @@
 package applications.fibonacci;
 
 import api.ReturnValue;
+import java.io.IOException;
 import javax.swing.JLabel;
 import javax.swing.SwingConstants;
+import system.Codec;
 import system.Task;
+import system.Wire;
+import system.WireInput;
+import system.WireOutput;
 
 /**
  *
@@ -34,11 +39,36 @@ import system.Task;
  */
 public class ReturnValueFibonacci extends ReturnValue<Integer>
 {    
+    static
+    {
+        Wire.register( ReturnValueFibonacci.class, new Codec<ReturnValueFibonacci>()
+        {
+            @Override
+            public void write( WireOutput out, ReturnValueFibonacci returnValue ) throws IOException 
+            {
+                out.writeVarInt( returnValue.composeId() );
+                out.writeVarInt( returnValue.composeArgNum() );
+                out.writeVarInt( returnValue.value() );
+            }
+
+            @Override
+            public ReturnValueFibonacci read( WireInput in ) throws IOException 
+            {
+                return new ReturnValueFibonacci( in.readVarInt(), in.readVarInt(), in.readVarInt() );
+            }
+        } );
+    }
+    
     ReturnValueFibonacci( final Task task, Integer value )
     {
         super( task, value );
     }
     
+    private ReturnValueFibonacci( int composeId, int composeArgNum, Integer value )
+    {
+        super( composeId, composeArgNum, value );
+    }
+    
     @Override
     public JLabel view() 
     {
@@ -25,6 +25,7 @@ package applications.fibonacci;
 
 import api.ReturnValue;
 import api.TaskCompose;
+import system.Wire;
 
 /**
  *
@@ -32,6 +33,8 @@ import api.TaskCompose;
  */
 public class SumIntegers extends TaskCompose<Integer>
 {    
+    static { Wire.register( SumIntegers.class, TaskCompose.codec( SumIntegers::new ) ); }
+    
     @Override
     public ReturnValue call() 
     {
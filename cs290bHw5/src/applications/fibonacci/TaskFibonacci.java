@@ -28,8 +28,13 @@ import api.ReturnDecomposition;
 import api.ReturnValue;
 import system.Task;
 import api.TaskRecursive;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import system.Codec;
+import system.Wire;
+import system.WireInput;
+import system.WireOutput;
 
 /**
  * Compute the nth Fibonacci number.
@@ -42,6 +47,18 @@ public class TaskFibonacci extends TaskRecursive<Integer>
     static private final Task   TASK        = new TaskFibonacci( N );
     static private final String FRAME_TITLE = "Fibonacci number";
     
+    static
+    {
+        Wire.register( TaskFibonacci.class, new Codec<TaskFibonacci>()
+        {
+            @Override
+            public void write( WireOutput out, TaskFibonacci task ) throws IOException { out.writeVarInt( task.n ); }
+
+            @Override
+            public TaskFibonacci read( WireInput in ) throws IOException { return new TaskFibonacci( in.readVarInt() ); }
+        } );
+    }
+    
     public static void main( final String[] args ) throws Exception
     {
         new JobRunner( FRAME_TITLE, args ).run( TASK );
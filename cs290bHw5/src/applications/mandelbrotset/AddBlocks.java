@@ -25,30 +25,46 @@ package applications.mandelbrotset;
 
 import api.ReturnValue;
 import api.TaskCompose;
-import static applications.mandelbrotset.TaskMandelbrotSet.BLOCK_SIZE;
-import static applications.mandelbrotset.TaskMandelbrotSet.N_PIXELS;
 
 /**
- *
+ * Compose a block from its sub-blocks.
  * @author Peter Cappello
  */
 public class AddBlocks extends TaskCompose<IterationCounts>
 {    
+    final private int numPixels;
+    final private int row;
+    final private int col;
+    
+    /**
+     *
+     * @param numPixels the number of pixels on an edge of the composed block.
+     * @param row the image row of the composed block's first pixel.
+     * @param col the image column of the composed block's first pixel.
+     */
+    AddBlocks( int numPixels, int row, int col )
+    {
+        this.numPixels = numPixels;
+        this.row = row;
+        this.col = col;
+    }
+    
     @Override
     public ReturnValue call() 
     {
-        Integer[][] counts = new Integer[N_PIXELS][N_PIXELS];
+        final int[] counts = new int[ numPixels * numPixels ];
         for ( IterationCounts iterationCounts : args() ) 
         {            
             // copy blockCounts into counts array
-            Integer[][] blockCounts = iterationCounts.counts();
-            int blockRow = iterationCounts.row();
-            int blockCol = iterationCounts.col();
-            for ( int row = 0; row < BLOCK_SIZE; row++ )
+            final int[] blockCounts = iterationCounts.counts();
+            final int blockSize = iterationCounts.numPixels();
+            final int blockRow = iterationCounts.row() - row;
+            final int blockCol = iterationCounts.col() - col;
+            for ( int r = 0; r < blockSize; r++ )
             {
-                System.arraycopy( blockCounts[ row ], 0, counts[ blockRow * BLOCK_SIZE + row ], blockCol * BLOCK_SIZE, BLOCK_SIZE );
+                System.arraycopy( blockCounts, r * blockSize, counts, ( blockRow + r ) * numPixels + blockCol, blockSize );
             }
         }
-        return new ReturnValueIterationCounts( this, new IterationCounts( counts, 0, 0 ) );
+        return new ReturnValueIterationCounts( this, new IterationCounts( counts, numPixels, row, col ) );
     }
 }
@@ -23,32 +23,96 @@
  */
 package applications.mandelbrotset;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+
 /**
- *
+ * A square block of iteration counts, stored row major in a flat int array.
+ * When serialized, counts are written as unsigned shorts if they all are at most 65535.
  * @author Peter Cappello
  */
-public class IterationCounts
+public class IterationCounts implements Serializable
 {
-    final private Integer[][] counts;
-    final private int row;
-    final private int col;
+    static final private long serialVersionUID = 1L;
+    static final private int MAX_SHORT_COUNT = 0xFFFF;
+    
+    private transient int[] counts;
+    private int numPixels;
+    private int row;
+    private int col;
     
     /**
-     * Return container for TaskEuclideanTsp.
-     * @param counts
-     * @param row
-     * @param col
+     * Return container for TaskMandelbrotSet.
+     * @param counts numPixels x numPixels iteration counts, row major.
+     * @param numPixels the number of pixels on an edge of the block.
+     * @param row the image row of the block's first pixel.
+     * @param col the image column of the block's first pixel.
      */
-    public IterationCounts( Integer[][] counts, int row, int col ) 
+    public IterationCounts( int[] counts, int numPixels, int row, int col ) 
     {
+        assert counts.length == numPixels * numPixels;
         this.counts = counts;
+        this.numPixels = numPixels;
         this.row = row;
         this.col = col;
     } 
  
-    public Integer[][] counts() { return counts; }
+    public int[] counts() { return counts; }
+    
+    public int count( int pixelRow, int pixelCol ) { return counts[ pixelRow * numPixels + pixelCol ]; }
+    
+    public int numPixels() { return numPixels; }
     
     public int row() { return row; }
     
     public int col() { return col; }
+    
+    private void writeObject( ObjectOutputStream out ) throws IOException
+    {
+        out.defaultWriteObject();
+        int maxCount = 0;
+        for ( int count : counts )
+        {
+            maxCount = Math.max( maxCount, count );
+        }
+        final boolean isShort = maxCount <= MAX_SHORT_COUNT;
+        out.writeBoolean( isShort );
+        final ByteBuffer buffer = ByteBuffer.allocate( counts.length * ( isShort ? Short.BYTES : Integer.BYTES ) );
+        if ( isShort )
+        {
+            for ( int count : counts )
+            {
+                buffer.putShort( (short) count );
+            }
+        }
+        else
+        {
+            buffer.asIntBuffer().put( counts );
+        }
+        out.write( buffer.array() );
+    }
+    
+    private void readObject( ObjectInputStream in ) throws IOException, ClassNotFoundException
+    {
+        in.defaultReadObject();
+        final boolean isShort = in.readBoolean();
+        counts = new int[ numPixels * numPixels ];
+        final byte[] bytes = new byte[ counts.length * ( isShort ? Short.BYTES : Integer.BYTES ) ];
+        in.readFully( bytes );
+        final ByteBuffer buffer = ByteBuffer.wrap( bytes );
+        if ( isShort )
+        {
+            for ( int i = 0; i < counts.length; i++ )
+            {
+                counts[ i ] = Short.toUnsignedInt( buffer.getShort() );
+            }
+        }
+        else
+        {
+            buffer.asIntBuffer().get( counts );
+        }
+    }
 }
@@ -0,0 +1,157 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package applications.mandelbrotset;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A numPixels x numPixels array of iteration counts, stored row major as 
+ * unsigned shorts in a file. The file is memory mapped in strips of stripSize 
+ * rows, so that blocks are written into it as they arrive, without holding 
+ * the whole array in the heap. The strips of a file are shared by all 
+ * IterationCountsFile objects of this JVM that name it, until it is closed:
+ * each job names its own file.
+ * @author Peter Cappello
+ */
+public class IterationCountsFile implements Serializable
+{
+    static final private long serialVersionUID = 1L;
+    static final public int MAX_COUNT = 0xFFFF; // the largest unsigned short
+    static final private Map<String, Map<Integer, MappedByteBuffer>> STRIPS = new ConcurrentHashMap<>();
+    
+    final private String fileName;
+    final private int numPixels;
+    final private int stripSize;
+    
+    /**
+     *
+     * @param fileName the name of the file.
+     * @param numPixels the number of pixels on an edge of the array.
+     * @param stripSize the number of rows in a mapped strip.
+     */
+    public IterationCountsFile( String fileName, int numPixels, int stripSize )
+    {
+        if ( numPixels % stripSize != 0 )
+        {
+            throw new IllegalArgumentException( "The strip size " + stripSize + " does not divide " + numPixels + " pixels." );
+        }
+        this.fileName = fileName;
+        this.numPixels = numPixels;
+        this.stripSize = stripSize;
+    }
+    
+    public String fileName() { return fileName; }
+    
+    public int numPixels() { return numPixels; }
+    
+    /**
+     * Write a block into its strip. Blocks occupy disjoint regions, so
+     * blocks may be written concurrently.
+     * @param block the block's iteration counts: each at most MAX_COUNT.
+     */
+    public void put( IterationCounts block )
+    {
+        final int[] counts = block.counts();
+        final int blockSize = block.numPixels();
+        for ( int r = 0; r < blockSize; r++ )
+        {
+            final int row = block.row() + r;
+            final ShortBuffer strip = strip( row / stripSize ).asShortBuffer();
+            final int offset = ( row % stripSize ) * numPixels + block.col();
+            for ( int c = 0; c < blockSize; c++ )
+            {
+                assert counts[ r * blockSize + c ] <= MAX_COUNT;
+                strip.put( offset + c, (short) counts[ r * blockSize + c ] );
+            }
+        }
+    }
+    
+    /**
+     *
+     * @param row pixel row.
+     * @param col pixel column.
+     * @return the iteration count of the pixel.
+     */
+    public int count( int row, int col )
+    {
+        final MappedByteBuffer strip = strip( row / stripSize );
+        return Short.toUnsignedInt( strip.getShort( Short.BYTES * ( ( row % stripSize ) * numPixels + col ) ) );
+    }
+    
+    /**
+     * Write the file's mapped strips to the storage device.
+     */
+    public void force() { strips().values().forEach( MappedByteBuffer::force ); }
+    
+    /**
+     * Release the file's mapped strips: they are unmapped when they are garbage collected.
+     * A later access maps them again.
+     */
+    public void close() { STRIPS.remove( fileName ); }
+    
+    /**
+     * @return the file's mapped strips; when there are none, the file is first sized to hold the array.
+     */
+    private Map<Integer, MappedByteBuffer> strips() 
+    { 
+        return STRIPS.computeIfAbsent( fileName, name -> 
+        {
+            try ( RandomAccessFile file = new RandomAccessFile( fileName, "rw" ) )
+            {
+                file.setLength( (long) Short.BYTES * numPixels * numPixels );
+            }
+            catch ( IOException exception ) 
+            {
+                throw new UncheckedIOException( exception );
+            }
+            return new ConcurrentHashMap<>();
+        } );
+    }
+    
+    private MappedByteBuffer strip( int stripNum )
+    {
+        return strips().computeIfAbsent( stripNum, this::map );
+    }
+    
+    private MappedByteBuffer map( int stripNum )
+    {
+        final long stripBytes = (long) Short.BYTES * stripSize * numPixels;
+        try ( RandomAccessFile file = new RandomAccessFile( fileName, "rw" ) )
+        {
+            return file.getChannel().map( FileChannel.MapMode.READ_WRITE, stripNum * stripBytes, stripBytes );
+        }
+        catch ( IOException exception ) 
+        {
+            throw new UncheckedIOException( exception );
+        }
+    }
+}
@@ -30,9 +30,14 @@ import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Image;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
 import javax.swing.ImageIcon;
 import javax.swing.JLabel;
+import system.Codec;
 import system.Task;
+import system.Wire;
+import system.WireInput;
+import system.WireOutput;
 
 /**
  *
@@ -40,18 +45,40 @@ import system.Task;
  */
 public class ReturnValueIterationCounts extends ReturnValue<IterationCounts>
 {
+    static
+    {
+        Wire.register( ReturnValueIterationCounts.class, new Codec<ReturnValueIterationCounts>()
+        {
+            @Override
+            public void write( WireOutput out, ReturnValueIterationCounts returnValue ) throws IOException 
+            {
+                out.writeVarInt( returnValue.composeId() );
+                out.writeVarInt( returnValue.composeArgNum() );
+                out.writeObject( returnValue.value() ); // IterationCounts serializes itself compactly
+            }
+
+            @Override
+            public ReturnValueIterationCounts read( WireInput in ) throws IOException, ClassNotFoundException 
+            {
+                return new ReturnValueIterationCounts( in.readVarInt(), in.readVarInt(), (IterationCounts) in.readObject() );
+            }
+        } );
+    }
+    
     ReturnValueIterationCounts( final Task task, final IterationCounts counts ) { super( task, counts ); }
     
+    private ReturnValueIterationCounts( int composeId, int composeArgNum, IterationCounts counts ) { super( composeId, composeArgNum, counts ); }
+    
     @Override
     public JLabel view() 
     {
-        final Integer[][] counts = value().counts();
+        final IterationCounts counts = value();
         final Image image = new BufferedImage( N_PIXELS, N_PIXELS, BufferedImage.TYPE_INT_ARGB );
         final Graphics graphics = image.getGraphics();
-        for ( int i = 0; i < counts.length; i++ )
-            for ( int j = 0; j < counts.length; j++ )
+        for ( int i = 0; i < counts.numPixels(); i++ )
+            for ( int j = 0; j < counts.numPixels(); j++ )
             {
-                graphics.setColor( getColor( counts[i][j] ) );
+                graphics.setColor( getColor( counts.count( i, j ) ) );
                 graphics.fillRect( i, N_PIXELS - j, 1, 1 );
             }
         final ImageIcon imageIcon = new ImageIcon( image );
@@ -0,0 +1,75 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package applications.mandelbrotset;
+
+import api.ReturnValue;
+import static applications.mandelbrotset.TaskMandelbrotSet.ITERATION_LIMIT;
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import javax.swing.ImageIcon;
+import javax.swing.JLabel;
+import system.Task;
+
+/**
+ * The iteration counts of a streamed job: their file, not the counts themselves.
+ * @author Peter Cappello
+ */
+public class ReturnValueIterationCountsFile extends ReturnValue<IterationCountsFile>
+{
+    static final private long serialVersionUID = 1L;
+    static final private int MAX_VIEW_PIXELS = 1024;
+    
+    ReturnValueIterationCountsFile( final Task task, final IterationCountsFile file ) { super( task, file ); }
+    
+    /**
+     * View the counts, sampling every scale-th pixel, so that images larger 
+     * than MAX_VIEW_PIXELS on an edge fit in the view.
+     * @return the view.
+     */
+    @Override
+    public JLabel view() 
+    {
+        final IterationCountsFile counts = value();
+        final int scale = ( counts.numPixels() + MAX_VIEW_PIXELS - 1 ) / MAX_VIEW_PIXELS;
+        final int viewPixels = counts.numPixels() / scale;
+        final Image image = new BufferedImage( viewPixels, viewPixels, BufferedImage.TYPE_INT_ARGB );
+        final Graphics graphics = image.getGraphics();
+        for ( int i = 0; i < viewPixels; i++ )
+            for ( int j = 0; j < viewPixels; j++ )
+            {
+                graphics.setColor( getColor( counts.count( i * scale, j * scale ) ) );
+                graphics.fillRect( i, viewPixels - j, 1, 1 );
+            }
+        counts.close();
+        final ImageIcon imageIcon = new ImageIcon( image );
+        return new JLabel( imageIcon );
+    }
+    
+    private Color getColor( final int iterationCount )
+    {
+        return iterationCount == ITERATION_LIMIT ? Color.BLACK : Color.WHITE;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package applications.mandelbrotset;
+
+import api.ReturnValue;
+import api.TaskCompose;
+
+/**
+ * Compose the blocks by writing each into an IterationCountsFile as it arrives 
+ * at the Space, rather than copying them all into one array, as AddBlocks does.
+ * A block composed by a StreamBlocks task is already in the file: 
+ * only the root StreamBlocks task returns the file, which it closes in the Space; 
+ * the others return a block without counts.
+ * @author Peter Cappello
+ */
+public class StreamBlocks extends TaskCompose<IterationCounts>
+{
+    static final private long serialVersionUID = 1L;
+    static final private int[] NO_COUNTS = new int[ 0 ];
+    
+    final private IterationCountsFile file;
+    final private boolean isRoot;
+    
+    StreamBlocks( IterationCountsFile file, boolean isRoot ) 
+    { 
+        this.file = file; 
+        this.isRoot = isRoot;
+    }
+    
+    /**
+     * Write the block's counts, if any, into the file; hold only its position.
+     */
+    @Override
+    protected IterationCounts accept( int argNum, IterationCounts block )
+    {
+        file.put( block );
+        return new IterationCounts( NO_COUNTS, 0, block.row(), block.col() );
+    }
+    
+    /**
+     * The file is written by the Space.
+     */
+    @Override
+    public boolean isLocallyComposable() { return false; }
+    
+    @Override
+    public ReturnValue<?> call() 
+    {
+        if ( ! isRoot )
+        {
+            return new ReturnValueIterationCounts( this, new IterationCounts( NO_COUNTS, 0, 0, 0 ) );
+        }
+        file.force();
+        file.close();
+        return new ReturnValueIterationCountsFile( this, file );
+    }
+}
@@ -25,13 +25,27 @@ package applications.mandelbrotset;
 import api.JobRunner;
 import api.ReturnDecomposition;
 import api.ReturnValue;
+import api.TaskCompose;
 import system.Task;
 import api.TaskRecursive;
-import java.util.LinkedList;
+import system.Codec;
+import system.Wire;
+import system.WireInput;
+import system.WireOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
 
 /**
- *
+ * Compute the iteration counts of a square block of pixels.
+ * A block that is not atomic decomposes into its 4 quadrants: a quad tree.
+ * Atomicity is cost aware: a block is atomic when its cost, estimated from a coarse grid of samples, is small.
+ * Atomic blocks are solved by Mariani-Silver subdivision: 
+ * a rectangle whose border, fully computed, is uniform is filled with its border's count,
+ * unless the rectangle encloses the Mandelbrot set.
+ * Pixels are computed LANES at a time.
  * @author Peter Cappello
  */
 public class TaskMandelbrotSet extends TaskRecursive<IterationCounts>
@@ -43,81 +57,320 @@ public class TaskMandelbrotSet extends TaskRecursive<IterationCounts>
     static public final int N_PIXELS = 1024;
     static public final int ITERATION_LIMIT = 512;
     static public final int BLOCK_SIZE = 256;
+    static public final boolean STREAM_BLOCKS = false; // write blocks into a counts file, named per job, as they arrive
+    static public final String COUNTS_FILE_PREFIX = "mandelbrotset-";
     
     static final private String FRAME_TITLE = "Mandelbrot Set Visualization";
-    static final private Task TASK = new TaskMandelbrotSet( LOWER_LEFT_X, LOWER_LEFT_Y, EDGE_LENGTH , N_PIXELS, ITERATION_LIMIT, 0, 0 );
-    static final private int MAX_NUM_PIXELS = 256;
+    static final private Task TASK = new TaskMandelbrotSet( LOWER_LEFT_X, LOWER_LEFT_Y, EDGE_LENGTH , N_PIXELS, ITERATION_LIMIT );
+    static final private int MIN_BLOCK_SIZE = 32;       // smaller blocks are atomic
+    static final private int NUM_SAMPLES = 8;           // samples per edge of the coarse grid
+    static final private long MAX_ATOMIC_COST = 1 << 22; // estimated iterations of an atomic block
+    static final private int MIN_FILL_SIZE = 4;         // smaller rectangles are not Mariani-Silver subdivided
+    static final private int UNSET = -1;
+    static final private int LANES = 4;                 // pixels computed in lockstep
     
     public static void main( final String[] args ) throws Exception
     {
         new JobRunner( FRAME_TITLE, args ).run( TASK );
     }
     
+    static
+    {
+        Wire.register( TaskMandelbrotSet.class, new Codec<TaskMandelbrotSet>()
+        {
+            @Override
+            public void write( WireOutput out, TaskMandelbrotSet task ) throws IOException 
+            {
+                out.writeDouble( task.lowerLeftX );
+                out.writeDouble( task.lowerLeftY );
+                out.writeDouble( task.delta );
+                out.writeVarInt( task.numPixels );
+                out.writeVarInt( task.iterationLimit );
+                out.writeVarInt( task.row );
+                out.writeVarInt( task.col );
+                out.writeObject( task.file );
+            }
+
+            @Override
+            public TaskMandelbrotSet read( WireInput in ) throws IOException, ClassNotFoundException 
+            {
+                return new TaskMandelbrotSet( in.readDouble(), in.readDouble(), in.readDouble(), 
+                                              in.readVarInt(), in.readVarInt(), in.readVarInt(), in.readVarInt(), 
+                                              (IterationCountsFile) in.readObject() );
+            }
+        } );
+    }
+    
     final private double lowerLeftX;
     final private double lowerLeftY;
-    final private double edgeLength;
+    final private double delta;
     final private int numPixels;
     final private int iterationLimit;
-    final private int blockRow;
-    final private int blockCol;
-            
-    public TaskMandelbrotSet( double lowerLeftX, double lowerLeftY, double edgeLength, int numPixels, int iterationLimit, int blockRow, int blockCol )
+    final private int row;
+    final private int col;
+    final private IterationCountsFile file; // the job's counts file, if STREAM_BLOCKS; otherwise null
+    
+    /**
+     * The task of computing a numPixels x numPixels image.
+     * @param lowerLeftX the x coordinate of the image's lower left corner.
+     * @param lowerLeftY the y coordinate of the image's lower left corner.
+     * @param edgeLength the length of an edge of the image.
+     * @param numPixels the number of pixels on an edge of the image.
+     * @param iterationLimit the maximum iteration count: 
+     * if STREAM_BLOCKS, at most IterationCountsFile.MAX_COUNT.
+     */
+    public TaskMandelbrotSet( double lowerLeftX, double lowerLeftY, double edgeLength, int numPixels, int iterationLimit )
     {
+        if ( STREAM_BLOCKS && iterationLimit > IterationCountsFile.MAX_COUNT )
+        {
+            throw new IllegalArgumentException( "A counts file holds counts of at most " + IterationCountsFile.MAX_COUNT + "." );
+        }
         this.lowerLeftX = lowerLeftX;
         this.lowerLeftY = lowerLeftY;
-        this.edgeLength = edgeLength;
+        this.delta = edgeLength / numPixels;
         this.numPixels = numPixels;
         this.iterationLimit = iterationLimit;
-        this.blockRow = blockRow;
-        this.blockCol = blockCol;
+        this.row = 0;
+        this.col = 0;
+        file = STREAM_BLOCKS 
+                ? new IterationCountsFile( COUNTS_FILE_PREFIX + UUID.randomUUID() + ".counts", numPixels, 
+                                           numPixels % BLOCK_SIZE == 0 ? BLOCK_SIZE : numPixels ) 
+                : null;
+    }
+    
+    /**
+     * The task of computing a quadrant of the parent task's block.
+     * Pixel coordinates are computed from the image's lower left corner, 
+     * so they do not depend on the decomposition.
+     */
+    private TaskMandelbrotSet( TaskMandelbrotSet parent, int quadrantRow, int quadrantCol )
+    {
+        lowerLeftX = parent.lowerLeftX;
+        lowerLeftY = parent.lowerLeftY;
+        delta = parent.delta;
+        numPixels = parent.numPixels / 2;
+        iterationLimit = parent.iterationLimit;
+        row = parent.row + quadrantRow * numPixels;
+        col = parent.col + quadrantCol * numPixels;
+        file = parent.file;
+    }
+    
+    private TaskMandelbrotSet( double lowerLeftX, double lowerLeftY, double delta, int numPixels, int iterationLimit, int row, int col, 
+                               IterationCountsFile file )
+    {
+        this.lowerLeftX = lowerLeftX;
+        this.lowerLeftY = lowerLeftY;
+        this.delta = delta;
+        this.numPixels = numPixels;
+        this.iterationLimit = iterationLimit;
+        this.row = row;
+        this.col = col;
+        this.file = file;
     }
     
     @Override
-    public boolean isAtomic() { return MAX_NUM_PIXELS < numPixels; }
+    public boolean isAtomic() 
+    { 
+        return numPixels <= MIN_BLOCK_SIZE || numPixels % 2 != 0 || estimatedCost() <= MAX_ATOMIC_COST; 
+    }
 
     @Override
     public ReturnValue<IterationCounts> solve() 
     {
-        final Integer[][] counts = new Integer[numPixels][numPixels];
-        final double delta = edgeLength / numPixels;
-        for ( int row = 0; row < numPixels; row++ )
-            for ( int col = 0; col < numPixels; col++ )
-            {
-                counts[row][col] = getIterationCount( row, col, delta );
-            }
-        return new ReturnValueIterationCounts( this, new IterationCounts( counts, blockRow, blockCol ) );
+        final int[] counts = new int[ numPixels * numPixels ];
+        Arrays.fill( counts, UNSET );
+        fill( counts, new int[ 4 * numPixels ], 0, 0, numPixels, numPixels );
+        return new ReturnValueIterationCounts( this, new IterationCounts( counts, numPixels, row, col ) );
     }
 
     @Override
     public ReturnDecomposition divideAndConquer() 
     {
-        final List<Task> subtasks = new  LinkedList<>();
-        final int numBlocks = N_PIXELS / BLOCK_SIZE;
-        double subTaskEdgeLength = EDGE_LENGTH / numBlocks;
-        for ( int subTaskBlockRow = 0; subTaskBlockRow < numBlocks; subTaskBlockRow++ )
+        final List<Task> subtasks = new ArrayList<>();
+        for ( int quadrantRow = 0; quadrantRow < 2; quadrantRow++ )
         {
-            for ( int subTaskBlockCol = 0; subTaskBlockCol < numBlocks; subTaskBlockCol++ )
+            for ( int quadrantCol = 0; quadrantCol < 2; quadrantCol++ )
             {
-                final double subTaskLowerLeftX = LOWER_LEFT_X + subTaskEdgeLength * subTaskBlockRow;
-                final double subTaskLowerLeftY = LOWER_LEFT_Y + subTaskEdgeLength * subTaskBlockCol ;
-                Task task = new TaskMandelbrotSet( subTaskLowerLeftX, subTaskLowerLeftY, subTaskEdgeLength , BLOCK_SIZE, ITERATION_LIMIT, subTaskBlockRow, subTaskBlockCol );
-                subtasks.add( task );
+                subtasks.add( new TaskMandelbrotSet( this, quadrantRow, quadrantCol ) );
             }
         }
-        return new ReturnDecomposition( new AddBlocks(), subtasks );
+        final TaskCompose<?> compose = file != null 
+                ? new StreamBlocks( file, numPixels == file.numPixels() ) 
+                : new AddBlocks( numPixels, row, col );
+        return new ReturnDecomposition( compose, subtasks );
     }
     
     @Override
     public String toString()
     {
-        return String.format( "%s \n\t x: %e \n\t y: %e \n\t length: %e \n\t pixels: %d \n\t iteration limit: %d \n\t blockRow: %d \n\t blockCol: %d\n", 
-                getClass(), lowerLeftX, lowerLeftY, edgeLength, numPixels, iterationLimit, blockRow, blockCol );
+        return String.format( "%s \n\t x: %e \n\t y: %e \n\t delta: %e \n\t pixels: %d \n\t iteration limit: %d \n\t row: %d \n\t col: %d\n", 
+                getClass(), lowerLeftX, lowerLeftY, delta, numPixels, iterationLimit, row, col );
+    }
+    
+    /**
+     * Mariani-Silver: Set the counts of a rectangle of this block.
+     * If the counts of its border are uniform, so are the counts of its interior,
+     * unless the border's count is less than the iteration limit and the rectangle contains the origin:
+     * the pixels whose count exceeds the border's form a connected set that contains the origin, 
+     * so such a border encloses them all. Otherwise, subdivide it into 4 rectangles.
+     * @param counts this block's counts; UNSET if not yet computed.
+     * @param indices buffer for the indices of the pixels to be computed.
+     * @param row0 the rectangle's first row.
+     * @param col0 the rectangle's first column.
+     * @param numRows the rectangle's number of rows.
+     * @param numCols the rectangle's number of columns.
+     */
+    private void fill( int[] counts, int[] indices, int row0, int col0, int numRows, int numCols )
+    {
+        final int lastRow = row0 + numRows - 1;
+        final int lastCol = col0 + numCols - 1;
+        int numIndices = 0;
+        if ( numRows <= MIN_FILL_SIZE || numCols <= MIN_FILL_SIZE )
+        {
+            for ( int r = row0; r <= lastRow; r++ )
+                for ( int c = col0; c <= lastCol; c++ )
+                {
+                    numIndices = addIfUnset( counts, indices, numIndices, r * numPixels + c );
+                }
+            computeCounts( counts, indices, numIndices );
+            return;
+        }
+        for ( int c = col0; c <= lastCol; c++ )
+        {
+            numIndices = addIfUnset( counts, indices, numIndices, row0    * numPixels + c );
+            numIndices = addIfUnset( counts, indices, numIndices, lastRow * numPixels + c );
+        }
+        for ( int r = row0 + 1; r < lastRow; r++ )
+        {
+            numIndices = addIfUnset( counts, indices, numIndices, r * numPixels + col0 );
+            numIndices = addIfUnset( counts, indices, numIndices, r * numPixels + lastCol );
+        }
+        computeCounts( counts, indices, numIndices );
+        final int borderCount = counts[ row0 * numPixels + col0 ];
+        boolean isUniform = true;
+        for ( int c = col0; c <= lastCol; c++ )
+        {
+            isUniform &= counts[ row0 * numPixels + c ] == borderCount & counts[ lastRow * numPixels + c ] == borderCount;
+        }
+        for ( int r = row0 + 1; r < lastRow; r++ )
+        {
+            isUniform &= counts[ r * numPixels + col0 ] == borderCount & counts[ r * numPixels + lastCol ] == borderCount;
+        }
+        if ( isUniform && ( borderCount == iterationLimit || ! containsOrigin( row0, col0, lastRow, lastCol ) ) )
+        {
+            for ( int r = row0 + 1; r < lastRow; r++ )
+            {
+                Arrays.fill( counts, r * numPixels + col0 + 1, r * numPixels + lastCol, borderCount );
+            }
+            return;
+        }
+        final int halfRows = numRows / 2;
+        final int halfCols = numCols / 2;
+        fill( counts, indices, row0,            col0,            halfRows,           halfCols );
+        fill( counts, indices, row0,            col0 + halfCols, halfRows,           numCols - halfCols );
+        fill( counts, indices, row0 + halfRows, col0,            numRows - halfRows, halfCols );
+        fill( counts, indices, row0 + halfRows, col0 + halfCols, numRows - halfRows, numCols - halfCols );
+    }
+    
+    private int addIfUnset( int[] counts, int[] indices, int numIndices, int index )
+    {
+        if ( counts[ index ] == UNSET )
+        {
+            indices[ numIndices++ ] = index;
+        }
+        return numIndices;
+    }
+    
+    /**
+     * Compute the counts of the pixels at the given indices of this block, LANES at a time.
+     * @param counts this block's counts.
+     * @param indices the indices of the pixels to be computed.
+     * @param numIndices the number of indices.
+     */
+    private void computeCounts( int[] counts, int[] indices, int numIndices )
+    {
+        int i = 0;
+        for ( ; i + LANES <= numIndices; i += LANES )
+        {
+            getIterationCounts( counts, indices[ i ], indices[ i + 1 ], indices[ i + 2 ], indices[ i + 3 ] );
+        }
+        for ( ; i < numIndices; i++ )
+        {
+            counts[ indices[ i ] ] = getIterationCount( indices[ i ] / numPixels, indices[ i ] % numPixels );
+        }
+    }
+    
+    /**
+     * Compute the counts of 4 pixels of this block in lockstep, holding each 
+     * pixel's state in its own local variables: a lane. The lanes are independent,
+     * so their floating point operations overlap in the processor's pipelines.
+     * A lane whose pixel has escaped keeps iterating, but is no longer counted:
+     * once |z| > 2, |z| only grows. The iteration stops when all lanes have escaped.
+     * The arithmetic is that of getIterationCount, so the counts are identical.
+     * @param counts this block's counts.
+     * @param p0 the index of a pixel of this block; likewise p1, p2, p3.
+     */
+    void getIterationCounts( int[] counts, int p0, int p1, int p2, int p3 )
+    {
+        final double cx0 = lowerLeftX + ( row + p0 / numPixels ) * delta, cy0 = lowerLeftY + ( col + p0 % numPixels ) * delta;
+        final double cx1 = lowerLeftX + ( row + p1 / numPixels ) * delta, cy1 = lowerLeftY + ( col + p1 % numPixels ) * delta;
+        final double cx2 = lowerLeftX + ( row + p2 / numPixels ) * delta, cy2 = lowerLeftY + ( col + p2 % numPixels ) * delta;
+        final double cx3 = lowerLeftX + ( row + p3 / numPixels ) * delta, cy3 = lowerLeftY + ( col + p3 % numPixels ) * delta;
+        double x0 = cx0, y0 = cy0, x1 = cx1, y1 = cy1, x2 = cx2, y2 = cy2, x3 = cx3, y3 = cy3;
+        int count0 = 0, count1 = 0, count2 = 0, count3 = 0;
+        for ( int iteration = 0; iteration < iterationLimit; iteration++ )
+        {
+            final double xx0 = x0*x0, yy0 = y0*y0, xx1 = x1*x1, yy1 = y1*y1;
+            final double xx2 = x2*x2, yy2 = y2*y2, xx3 = x3*x3, yy3 = y3*y3;
+            final boolean in0 = xx0 + yy0 <= 4.0, in1 = xx1 + yy1 <= 4.0, in2 = xx2 + yy2 <= 4.0, in3 = xx3 + yy3 <= 4.0;
+            if ( ! ( in0 | in1 | in2 | in3 ) )
+            {
+                break;
+            }
+            count0 += in0 ? 1 : 0;
+            count1 += in1 ? 1 : 0;
+            count2 += in2 ? 1 : 0;
+            count3 += in3 ? 1 : 0;
+            y0 = 2*x0*y0 + cy0; x0 = xx0 - yy0 + cx0;
+            y1 = 2*x1*y1 + cy1; x1 = xx1 - yy1 + cx1;
+            y2 = 2*x2*y2 + cy2; x2 = xx2 - yy2 + cx2;
+            y3 = 2*x3*y3 + cy3; x3 = xx3 - yy3 + cx3;
+        }
+        counts[ p0 ] = count0;
+        counts[ p1 ] = count1;
+        counts[ p2 ] = count2;
+        counts[ p3 ] = count3;
+    }
+    
+    /**
+     * @return true if and only if the rectangle of this block whose corners are the given pixels contains the origin.
+     */
+    private boolean containsOrigin( int row0, int col0, int lastRow, int lastCol )
+    {
+        return lowerLeftX + ( row + row0 ) * delta <= 0 && 0 <= lowerLeftX + ( row + lastRow ) * delta
+            && lowerLeftY + ( col + col0 ) * delta <= 0 && 0 <= lowerLeftY + ( col + lastCol ) * delta;
+    }
+    
+    /**
+     * @return the number of iterations to compute this block, estimated 
+     * from a NUM_SAMPLES x NUM_SAMPLES grid of its pixels.
+     */
+    private long estimatedCost()
+    {
+        long sampleCost = 0;
+        final int step = numPixels / NUM_SAMPLES;
+        for ( int r = step / 2; r < numPixels; r += step )
+            for ( int c = step / 2; c < numPixels; c += step )
+            {
+                sampleCost += getIterationCount( r, c );
+            }
+        return sampleCost * numPixels * numPixels / ( NUM_SAMPLES * NUM_SAMPLES );
     }
     
-    private int getIterationCount( int row, int col, double delta )
+    int getIterationCount( int r, int c )
     {
-        final double x0 = lowerLeftX + row * delta;
-        final double y0 = lowerLeftY + col * delta;
+        final double x0 = lowerLeftX + ( row + r ) * delta;
+        final double y0 = lowerLeftY + ( col + c ) * delta;
         int iteration = 0;
         for ( double x = x0, y = y0; x*x + y*y <= 4.0 && iteration < iterationLimit; iteration++ )
         {
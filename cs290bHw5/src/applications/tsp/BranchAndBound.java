@@ -0,0 +1,266 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Peter Cappello.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package applications.tsp;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Depth-first branch and bound over the nearest neighbors lower bound that 
+ * allocates nothing per search node: the path is an int[], the unvisited
+ * cities are a bit mask, and each city's remaining virtual edges are a state
+ * code into a fixed int[][] nearest neighbors table, restored on backtrack.
+ * Whatever the task's lower bound, its nearest neighbors state is that of the root,
+ * replayed along the task's partial tour; the task's own bound decides only whether to search.
+ * Explores the same search tree as TaskTsp's children(), including the rule
+ * that city 1 precedes city 2, with the bound checked as each node is entered.
+ * A node that a partial tour of lesser cost dominates is not entered: see DominanceMemo.
+ * @author Peter Cappello
+ */
+final class BranchAndBound 
+{
+    static final private int REFRESH_INTERVAL = 4096; // search nodes between upper bound refreshes
+    
+    // virtual edge states: which of a city's 2 nearest neighbors remain
+    static final private int BOTH   = 0;
+    static final private int FIRST  = 1;
+    static final private int SECOND = 2;
+    static final private int NONE   = 3;
+    
+    final private TaskTsp task;
+    final private int numCities;
+    final private double[] distances; // row-major
+    final private int[] path;
+    final private int[][] neighbors;
+    final private int[] state;
+    final private DominanceMemo memo; // null if dominated partial tours are not pruned
+    final private long allCities;
+    final private double lowerBound; // of the task's partial tour, over nearest neighbors
+          private long unvisited;
+          private boolean pathContains1;
+          private int nodesUntilRefresh = REFRESH_INTERVAL;
+          private List<Integer> shortestTour;
+          private double shortestTourCost;
+          
+    BranchAndBound( final TaskTsp task )
+    {
+        this.task = task;
+        numCities = task.distances().size();
+        assert numCities <= Long.SIZE;
+        distances = task.distances().toArray();
+        path = new int[ numCities ];
+        neighbors = new int[ numCities ][ 2 ];
+        state = new int[ numCities ];
+        final boolean isNearestNeighbors = task.lowerBound() instanceof LowerBoundNearestNeighbors;
+        final LowerBoundNearestNeighbors nearest = isNearestNeighbors 
+                ? ( LowerBoundNearestNeighbors ) task.lowerBound() : new LowerBoundNearestNeighbors( task.distances() );
+        final List<Deque<Integer>> nearestNeighbors = nearest.nearestNeighbors();
+        for ( int city = 0; city < numCities; city++ )
+        {
+            final Deque<Integer> deque = nearestNeighbors.get( city );
+            state[ city ] = deque.size() == 2 ? BOTH : deque.size() == 1 ? FIRST : NONE;
+            if ( ! deque.isEmpty() )
+            {
+                neighbors[ city ][ 0 ] = deque.peekFirst();
+                neighbors[ city ][ 1 ] = deque.peekLast();
+            }
+        }
+        for ( int city : task.unvisitedCities() )
+        {
+            unvisited |= 1L << city;
+        }
+        pathContains1 = task.partialTourContains1();
+        memo = TaskTsp.DOMINANCE_PRUNING && numCities <= DominanceMemo.MAX_CITIES && task.contextId() != 0 
+             ? DominanceMemo.of( task.contextId() ) : null;
+        allCities = numCities == Long.SIZE ? -1L : ( 1L << numCities ) - 1;
+        final List<Integer> partialTour = task.tour();
+        for ( int i = 0; i < partialTour.size(); i++ )
+        {
+            path[ i ] = partialTour.get( i );
+        }
+        lowerBound = isNearestNeighbors ? nearest.cost() : replay( nearest.cost(), partialTour.size() - 1 );
+    }
+    
+    /**
+     * Search the completions of the task's partial tour.
+     * @return a tour of minimum cost, or the shared tour if none is shorter.
+     */
+    Tour solve()
+    {
+        refreshUpperBound();
+        if ( task.lowerBound().cost() < shortestTourCost )
+        {
+            search( task.tour().size() - 1, lowerBound, task.pathCost() );
+        }
+        return new Tour( shortestTour, shortestTourCost );
+    }
+    
+    /**
+     * Replace the virtual edges of the root's nearest neighbors state by the edges of path[ 0..end ], 
+     * as LowerBoundNearestNeighbors.make does.
+     * @param rootLowerBound the root's nearest neighbors lower bound.
+     * @return the nearest neighbors lower bound of the partial tour path[ 0..end ].
+     */
+    private double replay( double rootLowerBound, final int end )
+    {
+        double lowerBound = rootLowerBound;
+        for ( int i = 1; i <= end; i++ )
+        {
+            final int oldCity = path[ i - 1 ];
+            final int newCity = path[ i ];
+            lowerBound += distances[ oldCity * numCities + newCity ]
+                        - (   distances[ oldCity * numCities + removeVirtualEdge( oldCity, newCity ) ] 
+                            + distances[ newCity * numCities + removeVirtualEdge( newCity, oldCity ) ] 
+                          ) / 2.0;
+        }
+        return lowerBound;
+    }
+    
+    /**
+     * Extend the path whose end is path[ end ] by each unvisited city whose 
+     * lower bound is less than the cost of the shortest tour found so far.
+     * Computes the lower bound as LowerBoundNearestNeighbors.make does.
+     */
+    private void search( final int end, final double lowerBound, final double pathCost )
+    {
+        if ( --nodesUntilRefresh == 0 )
+        {
+            nodesUntilRefresh = REFRESH_INTERVAL;
+            refreshUpperBound();
+        }
+        final int oldCity = path[ end ];
+        final boolean isLastCity = Long.bitCount( unvisited ) == 1;
+        for ( long cities = unvisited; cities != 0; cities &= cities - 1 )
+        {
+            final int newCity = Long.numberOfTrailingZeros( cities );
+            if ( ! pathContains1 && newCity == 2 )
+            {
+                continue;
+            }
+            final int oldState = state[ oldCity ];
+            final int newState = state[ newCity ];
+            final int state0   = state[ 0 ];
+            
+            // replace old & new path endpoints' virtual edge w/ actual edge
+            final int oldCitysVirtualEndpoint = removeVirtualEdge( oldCity, newCity );
+            final int newCitysVirtualEndpoint = removeVirtualEdge( newCity, oldCity );
+            double newLowerBound = lowerBound 
+                    + distances[ oldCity * numCities + newCity ]
+                    - (   distances[ oldCity * numCities + oldCitysVirtualEndpoint ] 
+                        + distances[ newCity * numCities + newCitysVirtualEndpoint ] 
+                      ) / 2.0;
+            if ( isLastCity )
+            {
+                newLowerBound += distances[ newCity ];
+                newLowerBound -= (   distances[ removeVirtualEdge( 0, newCity ) ] 
+                                   + distances[ newCity * numCities + removeVirtualEdge( newCity, 0 ) ] 
+                                 ) / 2.0;
+            }
+            if ( newLowerBound < shortestTourCost )
+            {
+                path[ end + 1 ] = newCity;
+                if ( isLastCity )
+                {
+                    shortestTour = tour( end + 2 );
+                    shortestTourCost = newLowerBound;
+                    task.shared( new SharedTour( shortestTour, shortestTourCost ) );
+                }
+                else
+                {
+                    final boolean parentPathContains1 = pathContains1;
+                    final double newPathCost = pathCost + distances[ oldCity * numCities + newCity ];
+                    pathContains1 |= newCity == 1;
+                    unvisited &= ~( 1L << newCity );
+                    if ( memo == null || numCities - end - 2 < DominanceMemo.MIN_UNVISITED_CITIES 
+                      || ! memo.isDominated( allCities & ~unvisited, newCity, newPathCost ) )
+                    {
+                        search( end + 1, newLowerBound, newPathCost );
+                    }
+                    unvisited |= 1L << newCity;
+                    pathContains1 = parentPathContains1;
+                }
+            }
+            state[ oldCity ] = oldState;
+            state[ newCity ] = newState;
+            state[ 0 ]       = state0;
+        }
+    }
+    
+    /**
+     * Remove the virtual edge of fromCity that the actual edge to toCity 
+     * replaces: the first nearest neighbor, if it is toCity, else the last.
+     * @return the endpoint of the removed virtual edge.
+     */
+    private int removeVirtualEdge( final int fromCity, final int toCity )
+    {
+        final int[] nearestNeighbors = neighbors[ fromCity ];
+        switch ( state[ fromCity ] )
+        {
+            case BOTH:
+                if ( nearestNeighbors[ 0 ] == toCity )
+                {
+                    state[ fromCity ] = SECOND;
+                    return nearestNeighbors[ 0 ];
+                }
+                state[ fromCity ] = FIRST;
+                return nearestNeighbors[ 1 ];
+                
+            case FIRST:
+                state[ fromCity ] = NONE;
+                return nearestNeighbors[ 0 ];
+                
+            case SECOND:
+                state[ fromCity ] = NONE;
+                return nearestNeighbors[ 1 ];
+                
+            default:
+                assert false : fromCity + " has no virtual edge to replace.";
+                return fromCity;
+        }
+    }
+    
+    /**
+     * Read the task's shared tour, which is immutable, without locking.
+     */
+    private void refreshUpperBound()
+    {
+        final SharedTour sharedTour = ( SharedTour ) task.shared();
+        if ( shortestTour == null || sharedTour.cost() < shortestTourCost )
+        {
+            shortestTour = sharedTour.tour();
+            shortestTourCost = sharedTour.cost();
+        }
+    }
+    
+    private List<Integer> tour( final int length )
+    {
+        final List<Integer> tour = new ArrayList<>( length );
+        for ( int i = 0; i < length; i++ )
+        {
+            tour.add( path[ i ] );
+        }
+        return tour;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR ONE PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package applications.tsp;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Dominance pruning: of the partial tours that visit the same set of cities and end at the same city,
+ * every completion of one is a completion of the others, so only those of least cost need be searched.
+ * The memo keeps the least partial tour cost seen for each (visited cities, end city) key,
+ * in a lock-free open-addressed table of fixed capacity: 
+ * a key that finds no slot within MAX_PROBES is not remembered, and prunes nothing.
+ * A partial tour is dominated only by one of strictly lesser cost, 
+ * so a partial tour that is checked again is not dominated by itself.
+ * The memo is of a graph, not a job: 1 memo, of the graph of the most recent job context, is kept.
+ * @author Peter Cappello
+ */
+final class DominanceMemo 
+{
+    static final int MAX_CITIES = Long.SIZE - 6; // the visited cities and the end city fit in a long key
+    static final int MIN_UNVISITED_CITIES = 4; // a smaller subproblem is searched faster than looked up
+    static final private int CAPACITY = 1 << 19;
+    static final private int MAX_PROBES = 8;
+    static final private long EMPTY = 0L; // no key: city 0 is always visited
+    static final private long NONE = Double.doubleToRawLongBits( Double.POSITIVE_INFINITY );
+    static final private double EPSILON = 1e-10;
+    
+    static private volatile DominanceMemo memo;
+    
+    final private long contextId;
+    final private AtomicLongArray keys = new AtomicLongArray( CAPACITY );
+    final private AtomicLongArray costs = new AtomicLongArray( CAPACITY );
+    
+    private DominanceMemo( final long contextId ) 
+    { 
+        this.contextId = contextId;
+        for ( int i = 0; i < CAPACITY; i++ )
+        {
+            costs.set( i, NONE );
+        }
+    }
+    
+    /**
+     * @param contextId the id of the job context, whose distances are the graph's.
+     * @return the memo of the graph.
+     */
+    static DominanceMemo of( final long contextId )
+    {
+        final DominanceMemo current = memo;
+        if ( current != null && current.contextId == contextId )
+        {
+            return current;
+        }
+        synchronized ( DominanceMemo.class )
+        {
+            if ( memo == null || memo.contextId != contextId )
+            {
+                memo = new DominanceMemo( contextId );
+            }
+            return memo;
+        }
+    }
+    
+    /**
+     * Is a partial tour dominated by one of strictly lesser cost? If not, remember its cost.
+     * @param visited the bit mask of the cities that the partial tour visits, which include city 0.
+     * @param endCity the last city of the partial tour.
+     * @param cost the cost of the partial tour's edges, not including an edge back to city 0.
+     * @return true if and only if the partial tour is dominated.
+     */
+    boolean isDominated( final long visited, final int endCity, final double cost )
+    {
+        final long key = visited << 6 | endCity;
+        long hash = key * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 32;
+        for ( int probe = 0; probe < MAX_PROBES; probe++ )
+        {
+            final int i = (int) ( hash + probe ) & ( CAPACITY - 1 );
+            final long slotKey = keys.get( i );
+            if ( slotKey == key || slotKey == EMPTY && ( keys.compareAndSet( i, EMPTY, key ) || keys.get( i ) == key ) )
+            {
+                for ( long bits = costs.get( i ); ; bits = costs.get( i ) )
+                {
+                    final double leastCost = Double.longBitsToDouble( bits );
+                    if ( leastCost < cost - EPSILON )
+                    {
+                        return true;
+                    }
+                    if ( leastCost <= cost || costs.compareAndSet( i, bits, Double.doubleToRawLongBits( cost ) ) )
+                    {
+                        return false;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+}
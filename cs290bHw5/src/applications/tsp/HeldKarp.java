@@ -0,0 +1,174 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR ONE PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package applications.tsp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Held-Karp dynamic programming over the subsets of a subproblem's unvisited cities: 
+ * the least cost of a path from the partial tour's end city through a subset, ending at a city of the subset.
+ * Its cost, O( 2^k k^2 ) time for k unvisited cities, is fixed: it does not depend on the bounds, 
+ * so it beats branch and bound on a leaf of few unvisited cities, whose search the bounds barely prune.
+ * Its table, of 2^k k doubles, and its distances among the cities are buffers reused by each thread.
+ * @author Peter Cappello
+ */
+final class HeldKarp implements LeafSolver
+{
+    static final int MAX_CITIES = 16; // unvisited: the table of 2^16 16 doubles is 8 MB
+    
+    static final private ThreadLocal<double[]> TABLE = ThreadLocal.withInitial( () -> new double[ 0 ] );
+    static final private ThreadLocal<double[]> DISTANCES = ThreadLocal.withInitial( () -> new double[ ( MAX_CITIES + 1 ) * ( MAX_CITIES + 1 ) ] );
+    
+    /**
+     * @param task a subproblem of at most MAX_CITIES unvisited cities.
+     * @return a tour of minimum cost, or the shared tour if none is shorter.
+     */
+    @Override
+    public Tour solve( final TaskTsp task )
+    {
+        final List<Integer> partialTour = task.tour();
+        final List<Integer> unvisitedCities = task.unvisitedCities();
+        final int k = unvisitedCities.size();
+        assert k <= MAX_CITIES;
+        if ( k == 0 )
+        {   // the partial tour is a tour: close it at city 0.
+            return complete( task, new ArrayList<>( partialTour ), 
+                             task.pathCost() + task.distances().distance( partialTour.get( partialTour.size() - 1 ), 0 ) );
+        }
+        final int[] cities = new int[ k + 1 ]; // the unvisited cities, then the end city
+        for ( int i = 0; i < k; i++ )
+        {
+            cities[ i ] = unvisitedCities.get( i );
+        }
+        cities[ k ] = partialTour.get( partialTour.size() - 1 );
+        final double[] distances = DISTANCES.get();
+        for ( int i = 0; i <= k; i++ )
+        {
+            for ( int j = 0; j <= k; j++ )
+            {
+                distances[ i * ( k + 1 ) + j ] = task.distances().distance( cities[ i ], cities[ j ] );
+            }
+        }
+        
+        // table[ subset * k + last ]: the least cost of a path from the end city through subset, ending at last.
+        final int numSubsets = 1 << k;
+        double[] table = TABLE.get();
+        if ( table.length < numSubsets * k )
+        {
+            table = new double[ numSubsets * k ];
+            TABLE.set( table );
+        }
+        Arrays.fill( table, 0, numSubsets * k, Double.MAX_VALUE );
+        for ( int last = 0; last < k; last++ )
+        {
+            table[ ( 1 << last ) * k + last ] = distances[ k * ( k + 1 ) + last ];
+        }
+        for ( int subset = 1; subset < numSubsets; subset++ )
+        {
+            for ( int last = 0; last < k; last++ )
+            {
+                final double cost = table[ subset * k + last ];
+                if ( cost == Double.MAX_VALUE )
+                {
+                    continue;
+                }
+                for ( int next = 0; next < k; next++ )
+                {
+                    if ( ( subset & 1 << next ) == 0 )
+                    {
+                        final int index = ( subset | 1 << next ) * k + next;
+                        final double newCost = cost + distances[ last * ( k + 1 ) + next ];
+                        if ( newCost < table[ index ] )
+                        {
+                            table[ index ] = newCost;
+                        }
+                    }
+                }
+            }
+        }
+        
+        // close the tour at city 0, then trace its path back through the table.
+        final int allCities = numSubsets - 1;
+        int last = 0;
+        double cost = Double.MAX_VALUE;
+        for ( int i = 0; i < k; i++ )
+        {
+            final double tourCost = table[ allCities * k + i ] + task.distances().distance( cities[ i ], 0 );
+            if ( tourCost < cost )
+            {
+                cost = tourCost;
+                last = i;
+            }
+        }
+        cost += task.pathCost();
+        final SharedTour sharedTour = ( SharedTour ) task.shared();
+        if ( cost >= sharedTour.cost() )
+        {   // its path is not traced.
+            return new Tour( sharedTour.tour(), sharedTour.cost() );
+        }
+        final int[] path = new int[ k ];
+        for ( int subset = allCities, position = k - 1; position >= 0; position-- )
+        {
+            path[ position ] = cities[ last ];
+            final int previousSubset = subset ^ 1 << last;
+            int previous = last;
+            for ( int i = 0; i < k && previousSubset != 0; i++ )
+            {
+                if ( ( previousSubset & 1 << i ) != 0 
+                  && table[ previousSubset * k + i ] + distances[ i * ( k + 1 ) + last ] == table[ subset * k + last ] )
+                {
+                    previous = i;
+                    break;
+                }
+            }
+            subset = previousSubset;
+            last = previous;
+        }
+        final List<Integer> tour = new ArrayList<>( partialTour );
+        for ( int city : path )
+        {
+            tour.add( city );
+        }
+        return complete( task, tour, cost );
+    }
+    
+    /**
+     * @param task the subproblem.
+     * @param tour a tour of the subproblem.
+     * @param cost the tour's cost.
+     * @return the tour, shared, if it is shorter than the shared tour; otherwise, the shared tour.
+     */
+    private static Tour complete( final TaskTsp task, final List<Integer> tour, final double cost )
+    {
+        final SharedTour sharedTour = ( SharedTour ) task.shared();
+        if ( cost >= sharedTour.cost() )
+        {
+            return new Tour( sharedTour.tour(), sharedTour.cost() );
+        }
+        task.shared( new SharedTour( tour, cost ) );
+        return new Tour( tour, cost );
+    }
+}
@@ -23,14 +23,18 @@
  */
 package applications.tsp;
 
+import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Deque;
 import java.util.List;
 import java.util.stream.IntStream;
-import static util.EuclideanGraph.distance;
-import static util.EuclideanGraph.tourDistance;
+import system.Codec;
+import system.Wire;
+import system.WireInput;
+import system.WireOutput;
+import util.DistanceMatrix;
 
 /**
  *
@@ -38,16 +42,46 @@ import static util.EuclideanGraph.tourDistance;
  */
 final public class LowerBoundNearestNeighbors implements LowerBound 
 {
+    static final private long serialVersionUID = 1L;
+    
     static final private Integer    EMPTY = -1;
-    static final private double[][] CITIES = TaskTsp.CITIES;
     
            final private List<Deque<Integer>> nearestNeighborsList;
            final private double lowerBound;
     
-    public LowerBoundNearestNeighbors()
+    static
     {
-        nearestNeighborsList = initializeNearestNeighbors();
-        lowerBound = initializeLowerBound();
+        Wire.register( LowerBoundNearestNeighbors.class, new Codec<LowerBoundNearestNeighbors>()
+        {
+            @Override
+            public void write( WireOutput out, LowerBoundNearestNeighbors lowerBound ) throws IOException 
+            {
+                out.writeDouble( lowerBound.lowerBound );
+                out.writeVarInt( lowerBound.nearestNeighborsList.size() );
+                for ( Deque<Integer> deque : lowerBound.nearestNeighborsList )
+                {
+                    out.writeInts( new ArrayList<>( deque ) );
+                }
+            }
+
+            @Override
+            public LowerBoundNearestNeighbors read( WireInput in ) throws IOException 
+            {
+                final double lowerBound = in.readDouble();
+                final List<Deque<Integer>> nearestNeighbors = new ArrayList<>();
+                for ( int city = in.readVarInt(); city > 0; city-- )
+                {
+                    nearestNeighbors.add( new ArrayDeque<>( in.readInts( new ArrayList<>() ) ) );
+                }
+                return new LowerBoundNearestNeighbors( nearestNeighbors, lowerBound );
+            }
+        } );
+    }
+    
+    public LowerBoundNearestNeighbors( final DistanceMatrix distances )
+    {
+        nearestNeighborsList = initializeNearestNeighbors( distances );
+        lowerBound = initializeLowerBound( distances );
     }
     
     public LowerBoundNearestNeighbors( final List<Deque<Integer>> nearestNeighbors, final double lowerBound ) 
@@ -66,36 +100,36 @@ final public class LowerBoundNearestNeighbors implements LowerBound
         this.lowerBound = lowerBound;
     }
     
-    public double initializeLowerBound()
+    public double initializeLowerBound( final DistanceMatrix distances )
     {
         double bound = 0.0;
-        for ( int city = 0; city < CITIES.length; city++ )
+        for ( int city = 0; city < distances.size(); city++ )
         {
             final Deque<Integer> deque = nearestNeighborsList.get( city );
-            bound += distance( CITIES[ city ], CITIES[ deque.peekFirst() ] );
-            bound += distance( CITIES[ city ], CITIES[ deque.peekLast()  ] );
+            bound += distances.distance( city, deque.peekFirst() );
+            bound += distances.distance( city, deque.peekLast()  );
         }
         return bound / 2.0;
     }
     
-    private List<Deque<Integer>> initializeNearestNeighbors()
+    private List<Deque<Integer>> initializeNearestNeighbors( final DistanceMatrix distances )
     {
         final List<Deque<Integer>> neighbors = new ArrayList<>();
-        for ( int city = 0; city < CITIES.length; city++ )
+        for ( int city = 0; city < distances.size(); city++ )
         {
             Deque<Integer> cityNearestNeighbors = new ArrayDeque<>();
             cityNearestNeighbors.add( EMPTY );
             cityNearestNeighbors.add( EMPTY );
-            for ( int neighbor = 0; neighbor < CITIES.length; neighbor++ )
+            for ( int neighbor = 0; neighbor < distances.size(); neighbor++ )
             {
                 if ( neighbor != city )
                 {
-                    if ( cityNearestNeighbors.peekFirst().equals( EMPTY ) || distance( CITIES[ city ], CITIES[ neighbor ] ) < distance( CITIES[ city ], CITIES[ cityNearestNeighbors.peekFirst() ] ) )
+                    if ( cityNearestNeighbors.peekFirst().equals( EMPTY ) || distances.distance( city, neighbor ) < distances.distance( city, cityNearestNeighbors.peekFirst() ) )
                     {
                         cityNearestNeighbors.removeLast();
                         cityNearestNeighbors.addFirst( neighbor );
                     }
-                    else if ( cityNearestNeighbors.peekLast().equals( EMPTY ) || distance( CITIES[ city ], CITIES[ neighbor ] ) < distance( CITIES[ city ], CITIES[ cityNearestNeighbors.peekLast() ] ) )
+                    else if ( cityNearestNeighbors.peekLast().equals( EMPTY ) || distances.distance( city, neighbor ) < distances.distance( city, cityNearestNeighbors.peekLast() ) )
                     {
                         cityNearestNeighbors.removeLast();
                         cityNearestNeighbors.addLast( neighbor );
@@ -104,7 +138,7 @@ final public class LowerBoundNearestNeighbors implements LowerBound
             }
             assert ! cityNearestNeighbors.peekFirst().equals( EMPTY );
             assert ! cityNearestNeighbors.peekLast().equals(  EMPTY );
-            assert distance( CITIES[ city ], CITIES[ cityNearestNeighbors.peekFirst() ] ) <= distance( CITIES[ city ], CITIES[ cityNearestNeighbors.peekLast() ] );
+            assert distances.distance( city, cityNearestNeighbors.peekFirst() ) <= distances.distance( city, cityNearestNeighbors.peekLast() );
             neighbors.add( cityNearestNeighbors );
         }
         return neighbors;
@@ -113,9 +147,13 @@ final public class LowerBoundNearestNeighbors implements LowerBound
     @Override
     public double cost() { return lowerBound; }
     
+    List<Deque<Integer>> nearestNeighbors() { return nearestNeighborsList; }
+    
     @Override
     public LowerBound make( TaskTsp parentTask, Integer newCity ) 
     {
+        final DistanceMatrix distances = parentTask.distances();
+        
         // make a copy of nearestNeighbors: List<Deque<Integer>>
         final List<Deque<Integer>> copyNearestNeighbors = new ArrayList<>();
         for ( Deque<Integer> nearestNeighbors : nearestNeighborsList )
@@ -137,18 +175,18 @@ final public class LowerBoundNearestNeighbors implements LowerBound
         
         // update lowerBound incrementally
         double newLowerBound = lowerBound
-                + distance( CITIES[ oldCity ], CITIES[ newCity ] )
-                - (  distance( CITIES[ oldCity ], CITIES[ oldCitysVirtualEndpoint ] )
-                   + distance( CITIES[ newCity ], CITIES[ newCitysVirtualEndpoint ] )
+                + distances.distance( oldCity, newCity )
+                - (  distances.distance( oldCity, oldCitysVirtualEndpoint )
+                   + distances.distance( newCity, newCitysVirtualEndpoint )
                   ) / 2.0;
         if ( parentTask.unvisitedCities().size() == 1 )
         {
-            // tour is complete: make lower bound equal the cost of the tour: tourDistance( CITIES, partialTour );
+            // tour is complete: make lower bound equal the cost of the tour: distances.tourDistance( partialTour );
             assert copyNearestNeighbors.get( 0 ).size() == 1 : copyNearestNeighbors.get( 0 );
             assert copyNearestNeighbors.get( newCity ).size() == 1 : copyNearestNeighbors.get( newCity ) + " newCity: " + newCity + " oldCity: " + oldCity + " unvisited: " + parentTask.unvisitedCities() + " tour: " + parentTask.tour();
-            newLowerBound += distance( CITIES[ 0 ], CITIES[ newCity ] ); 
-            newLowerBound -= ( distance( CITIES[ 0 ], CITIES[ copyNearestNeighbors.get( 0 ).removeFirst() ] )
-                               + distance( CITIES[ newCity ], CITIES[ copyNearestNeighbors.get( newCity ).removeFirst() ] ) 
+            newLowerBound += distances.distance( 0, newCity ); 
+            newLowerBound -= ( distances.distance( 0, copyNearestNeighbors.get( 0 ).removeFirst() )
+                               + distances.distance( newCity, copyNearestNeighbors.get( newCity ).removeFirst() ) 
                              ) / 2.0;
         }
         return new LowerBoundNearestNeighbors( copyNearestNeighbors, newLowerBound );
@@ -182,8 +220,9 @@ final public class LowerBoundNearestNeighbors implements LowerBound
     
     public static void main( String[] args ) throws Exception
     {
-        LowerBoundNearestNeighbors lowerBoundNearestNeighbors = new LowerBoundNearestNeighbors();
-        lowerBoundNearestNeighbors.initializeLowerBound();
+        final DistanceMatrix distances = DistanceMatrix.make( TaskTsp.CITIES );
+        LowerBoundNearestNeighbors lowerBoundNearestNeighbors = new LowerBoundNearestNeighbors( distances );
+        lowerBoundNearestNeighbors.initializeLowerBound( distances );
         for ( int city = 0; city < lowerBoundNearestNeighbors.nearestNeighborsList.size(); city++ )
         {
             Deque<Integer> deque = lowerBoundNearestNeighbors.nearestNeighborsList.get( city );
@@ -234,25 +273,27 @@ final public class LowerBoundNearestNeighbors implements LowerBound
     */
     private double recomputeLowerBound( TaskTsp task, Integer newCity )
     {
+        final DistanceMatrix distances = task.distances();
+        
         // contribution to lower bound of actual edges of partial path
         List<Integer> partialTour = new ArrayList<>( task.tour() );
         partialTour.add( newCity );
         if ( task.unvisitedCities().size() == 1 )
         {
             assert newCity.equals( task.unvisitedCities().get( 0 ) );
-            return tourDistance( CITIES, partialTour ); 
+            return distances.tourDistance( partialTour ); 
         }
-        double cost = 2 * ( tourDistance( CITIES, partialTour ) - distance( CITIES[ 0 ], CITIES[ newCity ] ) );
+        double cost = 2 * ( distances.tourDistance( partialTour ) - distances.distance( 0, newCity ) );
         
         // contribution to lower bound of lower bound edges of endpoints of partial path
-        cost += distance( CITIES[ 0 ], CITIES[ nearestNeighborsList.get( 0 ).peekFirst() ] );
-        cost += distance( CITIES[ newCity ], CITIES[ nearestNeighborsList.get( newCity ).peekFirst() ] );
+        cost += distances.distance( 0, nearestNeighborsList.get( 0 ).peekFirst() );
+        cost += distances.distance( newCity, nearestNeighborsList.get( newCity ).peekFirst() );
         
         // contribution to lower bound of unvisited cities
         for ( Integer unvisitedCity : task.unvisitedCities() )
         {
-            cost += distance( CITIES[ unvisitedCity ], CITIES[ nearestNeighborsList.get( unvisitedCity ).peekFirst() ] );
-            cost += distance( CITIES[ unvisitedCity ], CITIES[ nearestNeighborsList.get( unvisitedCity ).peekLast() ] );
+            cost += distances.distance( unvisitedCity, nearestNeighborsList.get( unvisitedCity ).peekFirst() );
+            cost += distances.distance( unvisitedCity, nearestNeighborsList.get( unvisitedCity ).peekLast() );
         }
         return cost / 2.0;
     }
@@ -0,0 +1,295 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Peter Cappello.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package applications.tsp;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import system.Codec;
+import system.Wire;
+import system.WireInput;
+import system.WireOutput;
+import util.DistanceMatrix;
+
+/**
+ * The 1-tree lower bound, strengthened by Held-Karp Lagrangian multipliers.
+ * A partial tour from city 0 to its end city is completed by a path from the end city
+ * through the unvisited cities back to city 0: that path costs at least
+ * a minimum spanning tree of the unvisited cities plus the cheapest edge from each
+ * of the end city and city 0 to an unvisited city (the 2 cheapest from city 0, if it is the end city).
+ * With a multiplier pi added to each edge at an unvisited city, and 2 pi subtracted per city,
+ * this holds for any multipliers; subgradient ascent moves them toward a tighter bound.
+ *
+ * Incremental: a child starts its ascent from its parent's multipliers, so it takes
+ * few iterations, and its bound is at least its parent's.
+ * @author Peter Cappello
+ */
+final public class LowerBoundOneTree implements LowerBound
+{
+    static final private long serialVersionUID = 1L;
+    
+    static final private int    ROOT_ITERATIONS  = 100;
+    static final private int    CHILD_ITERATIONS = 10;
+    static final private double STEP_DECAY = 0.95; // of the subgradient step's scale, per iteration
+    static final private double ROOT_TARGET = 1.1; // without an upper bound, steps aim this far above the bound
+    
+    final private double lowerBound;
+    final private double pathCost; // of the partial tour's edges, but not its edge back to city 0
+    final private double[] multipliers; // by city: 0 for visited cities
+    
+    static
+    {
+        Wire.register( LowerBoundOneTree.class, new Codec<LowerBoundOneTree>()
+        {
+            @Override
+            public void write( WireOutput out, LowerBoundOneTree lowerBound ) throws IOException
+            {
+                out.writeDouble( lowerBound.lowerBound );
+                out.writeDouble( lowerBound.pathCost );
+                out.writeVarInt( lowerBound.multipliers.length );
+                for ( double multiplier : lowerBound.multipliers )
+                {
+                    out.writeDouble( multiplier );
+                }
+            }
+    
+            @Override
+            public LowerBoundOneTree read( WireInput in ) throws IOException
+            {
+                final double lowerBound = in.readDouble();
+                final double pathCost = in.readDouble();
+                final double[] multipliers = new double[ in.readVarInt() ];
+                for ( int city = 0; city < multipliers.length; city++ )
+                {
+                    multipliers[ city ] = in.readDouble();
+                }
+                return new LowerBoundOneTree( lowerBound, pathCost, multipliers );
+            }
+        } );
+    }
+    
+    /**
+     * The lower bound of the tours that start with city 0.
+     * @param distances
+     */
+    public LowerBoundOneTree( final DistanceMatrix distances )
+    {
+        final int[] unvisitedCities = new int[ distances.size() - 1 ];
+        Arrays.setAll( unvisitedCities, i -> i + 1 );
+        multipliers = new double[ distances.size() ];
+        pathCost = 0.0;
+        lowerBound = ascend( distances, 0, unvisitedCities, Double.MAX_VALUE, ROOT_ITERATIONS );
+    }
+    
+    private LowerBoundOneTree( final double lowerBound, final double pathCost, final double[] multipliers )
+    {
+        this.lowerBound = lowerBound;
+        this.pathCost = pathCost;
+        this.multipliers = multipliers;
+    }
+    
+    private LowerBoundOneTree( final LowerBoundOneTree parent, final TaskTsp parentTask, final Integer newCity )
+    {
+        final DistanceMatrix distances = parentTask.distances();
+        final List<Integer> partialTour = parentTask.tour();
+        pathCost = parent.pathCost + distances.distance( partialTour.get( partialTour.size() - 1 ), newCity );
+        multipliers = parent.multipliers.clone();
+        multipliers[ newCity ] = 0.0;
+        final List<Integer> parentUnvisitedCities = parentTask.unvisitedCities();
+        final int[] unvisitedCities = new int[ parentUnvisitedCities.size() - 1 ];
+        int i = 0;
+        for ( int city : parentUnvisitedCities )
+        {
+            if ( city != newCity )
+            {
+                unvisitedCities[ i++ ] = city;
+            }
+        }
+        final double upperBound = ( (SharedTour) parentTask.shared() ).cost();
+        final double bound = ascend( distances, newCity, unvisitedCities, upperBound, CHILD_ITERATIONS );
+        lowerBound = unvisitedCities.length == 0 ? bound : Math.max( parent.lowerBound, bound ); // a complete tour's bound is its cost
+    }
+    
+    @Override
+    public double cost() { return lowerBound; }
+    
+    @Override
+    public LowerBound make( TaskTsp parentTask, Integer newCity )
+    {
+        return new LowerBoundOneTree( this, parentTask, newCity );
+    }
+    
+    /**
+     * Subgradient ascent of the Lagrangian bound, over this bound's multipliers,
+     * which are left at the values that gave the greatest bound.
+     * Stops early when the bound reaches the upper bound,
+     * or when its 1-tree is a path, whose cost is then exact.
+     * @param distances
+     * @param endCity the end city of the partial tour.
+     * @param unvisitedCities
+     * @param upperBound the cost of the shortest known tour.
+     * @param iterations the maximum number of iterations.
+     * @return the greatest bound found.
+     */
+    private double ascend( final DistanceMatrix distances, final int endCity, final int[] unvisitedCities,
+                           final double upperBound, final int iterations )
+    {
+        final int numUnvisited = unvisitedCities.length;
+        if ( numUnvisited == 0 )
+        {
+            return pathCost + distances.distance( endCity, 0 );
+        }
+        final double[] bestMultipliers = multipliers.clone();
+        final int[] degrees = new int[ numUnvisited ];
+        final double[] keys = new double[ numUnvisited ];
+        final int[] parents = new int[ numUnvisited ];
+        final boolean[] inTree = new boolean[ numUnvisited ];
+        double bestBound = Double.NEGATIVE_INFINITY;
+        double scale = 2.0;
+        for ( int iteration = 0; iteration < iterations; iteration++, scale *= STEP_DECAY )
+        {
+            final double bound = pathCost
+                    + oneTree( distances, endCity, unvisitedCities, degrees, keys, parents, inTree );
+            if ( bound > bestBound )
+            {
+                bestBound = bound;
+                System.arraycopy( multipliers, 0, bestMultipliers, 0, multipliers.length );
+            }
+            int sumSquaredSubgradient = 0;
+            for ( int degree : degrees )
+            {
+                sumSquaredSubgradient += ( degree - 2 ) * ( degree - 2 );
+            }
+            if ( bound >= upperBound || sumSquaredSubgradient == 0 )
+            {
+                break;
+            }
+            final double target = upperBound < Double.MAX_VALUE ? upperBound : ROOT_TARGET * bound;
+            final double step = scale * ( target - bound ) / sumSquaredSubgradient;
+            for ( int i = 0; i < numUnvisited; i++ )
+            {
+                multipliers[ unvisitedCities[ i ] ] += step * ( degrees[ i ] - 2 );
+            }
+        }
+        System.arraycopy( bestMultipliers, 0, multipliers, 0, multipliers.length );
+        return bestBound;
+    }
+    
+    /**
+     * Compute the minimum 1-tree under the multipliers, by Prim's algorithm over the unvisited cities,
+     * then the cheapest edges to the end city and city 0.
+     * @param degrees set to the degree of each unvisited city in the 1-tree.
+     * @return the 1-tree's cost under the multipliers, less 2 per multiplier.
+     */
+    private double oneTree( final DistanceMatrix distances, final int endCity, final int[] unvisitedCities,
+                            final int[] degrees, final double[] keys, final int[] parents, final boolean[] inTree )
+    {
+        final int numUnvisited = unvisitedCities.length;
+        Arrays.fill( degrees, 0 );
+        Arrays.fill( keys, Double.MAX_VALUE );
+        Arrays.fill( inTree, false );
+        double cost = 0.0;
+        keys[ 0 ] = 0.0;
+        parents[ 0 ] = -1;
+        for ( int k = 0; k < numUnvisited; k++ )
+        {
+            int next = -1;
+            for ( int i = 0; i < numUnvisited; i++ )
+            {
+                if ( ! inTree[ i ] && ( next < 0 || keys[ i ] < keys[ next ] ) )
+                {
+                    next = i;
+                }
+            }
+            inTree[ next ] = true;
+            cost += keys[ next ];
+            if ( parents[ next ] >= 0 )
+            {
+                degrees[ next ]++;
+                degrees[ parents[ next ] ]++;
+            }
+            final int city = unvisitedCities[ next ];
+            for ( int i = 0; i < numUnvisited; i++ )
+            {
+                if ( ! inTree[ i ] )
+                {
+                    final int neighbor = unvisitedCities[ i ];
+                    final double weight = distances.distance( city, neighbor ) + multipliers[ city ] + multipliers[ neighbor ];
+                    if ( weight < keys[ i ] )
+                    {
+                        keys[ i ] = weight;
+                        parents[ i ] = next;
+                    }
+                }
+            }
+        }
+    
+        // the cheapest edges from city 0 and from the end city: 2 distinct edges from city 0, if it is the end city.
+        int first = -1, second = -1;
+        double firstWeight = Double.MAX_VALUE, secondWeight = Double.MAX_VALUE;
+        for ( int i = 0; i < numUnvisited; i++ )
+        {
+            final double weight = distances.distance( 0, unvisitedCities[ i ] ) + multipliers[ unvisitedCities[ i ] ];
+            if ( weight < firstWeight )
+            {
+                second = first;
+                secondWeight = firstWeight;
+                first = i;
+                firstWeight = weight;
+            }
+            else if ( weight < secondWeight )
+            {
+                second = i;
+                secondWeight = weight;
+            }
+        }
+        if ( endCity == 0 && second < 0 )
+        {   // 1 unvisited city: the tour is 0, it, 0.
+            second = first;
+            secondWeight = firstWeight;
+        }
+        else if ( endCity != 0 )
+        {
+            second = -1;
+            secondWeight = Double.MAX_VALUE;
+            for ( int i = 0; i < numUnvisited; i++ )
+            {
+                final double weight = distances.distance( endCity, unvisitedCities[ i ] ) + multipliers[ unvisitedCities[ i ] ];
+                if ( weight < secondWeight )
+                {
+                    second = i;
+                    secondWeight = weight;
+                }
+            }
+        }
+        degrees[ first ]++;
+        degrees[ second ]++;
+        cost += firstWeight + secondWeight;
+        for ( int city : unvisitedCities )
+        {
+            cost -= 2 * multipliers[ city ];
+        }
+        return cost;
+    }
+}
@@ -23,10 +23,14 @@
  */
 package applications.tsp;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import static util.EuclideanGraph.distance;
-import static util.EuclideanGraph.tourDistance;
+import system.Codec;
+import system.Wire;
+import system.WireInput;
+import system.WireOutput;
+import util.DistanceMatrix;
 
 /**
  *
@@ -34,26 +38,48 @@ import static util.EuclideanGraph.tourDistance;
  */
 final public class LowerBoundPartialTour implements LowerBound
 {
-    static final private double[][] CITIES = TaskTsp.CITIES;
+    static final private long serialVersionUID = 1L;
+    
            final private double lowerBound;
     
-    public LowerBoundPartialTour( final List<Integer> partialTour )
+    static
+    {
+        Wire.register( LowerBoundPartialTour.class, new Codec<LowerBoundPartialTour>()
+        {
+            @Override
+            public void write( WireOutput out, LowerBoundPartialTour lowerBound ) throws IOException 
+            {
+                out.writeDouble( lowerBound.lowerBound );
+            }
+
+            @Override
+            public LowerBoundPartialTour read( WireInput in ) throws IOException 
+            {
+                return new LowerBoundPartialTour( in.readDouble() );
+            }
+        } );
+    }
+    
+    public LowerBoundPartialTour( final DistanceMatrix distances, final List<Integer> partialTour )
     {
-        lowerBound = tourDistance( CITIES, partialTour );
+        lowerBound = distances.tourDistance( partialTour );
     }
     
     private LowerBoundPartialTour( final TaskTsp parentTask, final Integer newCity )
     {
+        final DistanceMatrix distances = parentTask.distances();
         List<Integer> partialTour = new ArrayList( parentTask.tour() );
         
         // compute lower bound in O(1) time using parent lower bound
         final Integer oldEndCity = partialTour.get( partialTour.size() - 1 );
         lowerBound = parentTask.lowerBound().cost()
-                   - distance( CITIES[ 0 ], CITIES[ oldEndCity ] )
-                   + distance( CITIES[ 0 ], CITIES[ newCity ] )
-                   + distance( CITIES[ oldEndCity ], CITIES[ newCity ] );
+                   - distances.distance( 0, oldEndCity )
+                   + distances.distance( 0, newCity )
+                   + distances.distance( oldEndCity, newCity );
     }
     
+    private LowerBoundPartialTour( final double lowerBound ) { this.lowerBound = lowerBound; }
+    
     @Override
     public double cost() { return lowerBound; }
 
@@ -26,6 +26,7 @@ package applications.tsp;
 import api.ReturnValue;
 import api.TaskCompose;
 import java.util.Comparator;
+import system.Wire;
 
 /**
  *
@@ -33,13 +34,26 @@ import java.util.Comparator;
  */
 public class MinTour extends TaskCompose<Tour>
 {
+    static { Wire.register( MinTour.class, TaskCompose.codec( MinTour::new ) ); }
+    
+    static final private Comparator<Tour> SHORTEST = Comparator.comparingDouble( Tour::cost )
+                                                             .thenComparing( tour -> tour.tour().isEmpty() );
+    
+    /**
+     * @return the shortest of the child tours, preferring one that is not empty, or, 
+     * if every child was pruned, the shared tour, which none of them could improve.
+     */
     @Override
     public ReturnValue call() 
     {
         return new ReturnValueTour( this, 
                           args().stream()
-                                .min( Comparator.comparingDouble( Tour::cost ) )
-                                .get() 
+                                .min( SHORTEST )
+                                .orElseGet( () -> 
+                                {
+                                    final SharedTour sharedTour = ( SharedTour ) shared();
+                                    return new Tour( sharedTour.tour(), sharedTour.cost() );
+                                } )
         );
     }
 }
@@ -29,12 +29,17 @@ import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Image;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.ImageIcon;
 import javax.swing.JLabel;
+import system.Codec;
 import system.Task;
+import system.Wire;
+import system.WireInput;
+import system.WireOutput;
 
 /**
  *
@@ -44,8 +49,42 @@ public class ReturnValueTour extends ReturnValue<Tour>
 {
     static final private int NUM_PIXELS = 600;
     
+    static
+    {
+        Wire.register( ReturnValueTour.class, new Codec<ReturnValueTour>()
+        {
+            @Override
+            public void write( WireOutput out, ReturnValueTour returnValue ) throws IOException 
+            {
+                out.writeVarInt( returnValue.composeId() );
+                out.writeVarInt( returnValue.composeArgNum() );
+                out.writeObject( returnValue.value() );
+            }
+
+            @Override
+            public ReturnValueTour read( WireInput in ) throws IOException, ClassNotFoundException 
+            {
+                return new ReturnValueTour( in.readVarInt(), in.readVarInt(), (Tour) in.readObject() );
+            }
+        } );
+    }
+    
     ReturnValueTour( final Task task, final Tour tour ) { super( task, tour ); }
     
+    private ReturnValueTour( int composeId, int composeArgNum, Tour tour ) { super( composeId, composeArgNum, tour ); }
+    
+    /**
+     * @param returnValue 
+     * @param tour replaces the tour of returnValue, whose time measures are kept.
+     */
+    ReturnValueTour( final ReturnValue<?> returnValue, final Tour tour ) 
+    { 
+        this( returnValue.composeId(), returnValue.composeArgNum(), tour );
+        taskRunTime( returnValue.taskRunTime() );
+        t1( returnValue.t1() );
+        tInf( returnValue.tInf() );
+    }
+    
     @Override
     public JLabel view() 
     {
@@ -23,17 +23,22 @@
  */
 package applications.tsp;
 
+import api.ReturnValue;
 import api.Shared;
+import java.util.Collections;
 import java.util.List;
 
 /**
- * 
+ * An immutable TSP incumbent. Its first tier, which computers get, is its cost;
+ * its tour is omitted: an empty tour.
+ * A task that finds a shorter tour returns it, so the job's result has the shortest tour found,
+ * unless no task improved upon the newest full tour, as submitted or from an Improver, which completes the result.
  * @author Peter Cappello
  */
 final public class SharedTour extends Shared<SharedTour>
 {
-    private List<Integer> tour;
-    private double cost;
+    final private List<Integer> tour;
+    final private double cost;
     
     /**
      *
@@ -46,24 +51,41 @@ final public class SharedTour extends Shared<SharedTour>
         this.cost = cost; 
     }
     
-     @Override
-    synchronized public void replaceWith( SharedTour that ) 
-    { 
-        tour = that.tour();
-        cost = that.cost(); 
-    }
+    @Override
+    protected boolean isImprovedBy( final SharedTour that ) { return cost > that.cost; }
     
     @Override
-    synchronized public Shared duplicate() { return new SharedTour( tour, cost ); }
+    public SharedTour bound() 
+    { 
+        if ( tour.isEmpty() )
+        {
+            return this;
+        }
+        final SharedTour bound = new SharedTour( Collections.emptyList(), cost );
+        bound.epoch( epoch() );
+        return bound;
+    }
     
+    /**
+     * @param result a ReturnValueTour, whose tour is empty if no task improved upon this tour.
+     * @return result, with this tour if its tour is empty.
+     */
     @Override
-    synchronized public boolean isOlderThan( final SharedTour that ) { return cost > that.cost(); }
+    public ReturnValue<?> complete( final ReturnValue<?> result ) 
+    {
+        final Tour resultTour = (Tour) result.value();
+        return resultTour.tour().isEmpty() ? new ReturnValueTour( result, new Tour( tour, cost ) ) : result;
+    }
     
-    synchronized public List<Integer> tour() { return tour; }
+    /**
+     * @return the tour, or an empty list if it is omitted.
+     */
+    public List<Integer> tour() { return tour; }
     
-    synchronized public double cost() { return cost; }
+    public double cost() { return cost; }
     
-    synchronized public String toString()
+    @Override
+    public String toString()
     {
         return this.getClass().getCanonicalName() + " cost: " + cost;
     }
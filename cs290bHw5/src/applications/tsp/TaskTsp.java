@@ -29,6 +29,7 @@ import api.ReturnValue;
 import api.Shared;
 import system.Task;
 import api.TaskRecursive;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
@@ -36,7 +37,12 @@ import java.util.List;
 import java.util.Stack;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
-import static util.EuclideanGraph.tourDistance;
+import system.Codec;
+import system.Return;
+import system.Wire;
+import system.WireInput;
+import system.WireOutput;
+import util.DistanceMatrix;
 import util.Graph;
 
 /**
@@ -67,38 +73,96 @@ public class TaskTsp extends TaskRecursive<Tour>
 	{ 4, 5 }
     };
     static final private String FRAME_TITLE = "Euclidean TSP";
-    static final private Task TASK = new TaskTsp();
-    static final private List<Integer> GREEDY_TOUR = Graph.greedyTour( CITIES ) ;
-    static private final double UPPER_BOUND = /*32.971; */ tourDistance( CITIES, GREEDY_TOUR );
+    static final private TspContext CONTEXT = new TspContext( CITIES );
+    static final private Task TASK = new TaskTsp( CONTEXT );
+    static final private List<Integer> GREEDY_TOUR = Graph.greedyTour( CONTEXT.distances() ) ;
+    static private final double UPPER_BOUND = /*32.971; */ CONTEXT.distances().tourDistance( GREEDY_TOUR );
     static private final Shared SHARED = new SharedTour( GREEDY_TOUR, UPPER_BOUND );
     
     public static void main( final String[] args ) throws Exception
     {
-        new JobRunner( FRAME_TITLE, args ).run( TASK, SHARED );
+        new JobRunner<Tour>( FRAME_TITLE, args ).run( TASK, SHARED, CONTEXT, new TourImprover( CONTEXT.distances(), GREEDY_TOUR ) );
     }
     
     static final Integer ONE = 1;
     static final Integer TWO = 2;
     static final Integer MAX_UNVISITED_CITIES = 12;
+    static final boolean DOMINANCE_PRUNING = true; // see DominanceMemo
+    static final boolean SPACE_DOMINANCE_PRUNING = true; // the Space's memo also prunes the subproblems that it dispatches, across computers
+    static final int MAX_HELD_KARP_CITIES = 8; // unvisited: a leaf of at most this many is solved by Held-Karp
+    
+    // leaf solvers
+    static final private LeafSolver BRANCH_AND_BOUND = task -> new BranchAndBound( task ).solve();
+    static final private LeafSolver HELD_KARP = new HeldKarp();
+    
+    static
+    {
+        Wire.register( TaskTsp.class, new Codec<TaskTsp>()
+        {
+            @Override
+            public void write( WireOutput out, TaskTsp task ) throws IOException 
+            {
+                out.writeInts( task.partialTour );
+                out.writeInts( task.unvisitedCities );
+                out.writeBoolean( task.partialTourContains1 );
+                out.writeObject( task.lowerBound );
+                out.writeDouble( task.pathCost );
+            }
+
+            @Override
+            public TaskTsp read( WireInput in ) throws IOException, ClassNotFoundException 
+            {
+                return new TaskTsp( in.readInts( new ArrayList<>() ), in.readInts( new ArrayList<>() ), 
+                                    in.readBoolean(), (LowerBound) in.readObject(), in.readDouble() );
+            }
+        } );
+    }
     
     private List<Integer> partialTour;
     private List<Integer> unvisitedCities;
     private LowerBound lowerBound;
     private boolean partialTourContains1;
     private boolean pruneMe;
+    private double pathCost; // of the partial tour's edges, but not its edge back to city 0
+    private transient DistanceMatrix distances; // from the job context, when first needed in this JVM
             
-    public TaskTsp()
+    public TaskTsp( final TspContext context )
     {
+        this( context, new LowerBoundOneTree( context.distances() ) );
+//        this( context, new LowerBoundNearestNeighbors( context.distances() ) );
+//        this( context, new LowerBoundPartialTour( context.distances(), Arrays.asList( 0 ) ) );
+    }
+    
+    /**
+     * @param context
+     * @param lowerBound the lower bound of the tours that start with city 0: its make method bounds the subproblems.
+     */
+    public TaskTsp( final TspContext context, final LowerBound lowerBound )
+    {
+        distances = context.distances();
         partialTour = Arrays.asList( 0 );
-        unvisitedCities = IntStream.range( 1, CITIES.length )
+        unvisitedCities = IntStream.range( 1, distances.size() )
                                    .boxed()
                                    .collect( Collectors.toList() );
-        lowerBound = new LowerBoundNearestNeighbors();
-//        lowerBound = new LowerBoundPartialTour( partialTour );
+        this.lowerBound = lowerBound;
+    }
+    
+    private TaskTsp( List<Integer> partialTour, List<Integer> unvisitedCities, boolean partialTourContains1, 
+                     LowerBound lowerBound, double pathCost )
+    {
+        this.partialTour = partialTour;
+        this.unvisitedCities = unvisitedCities;
+        this.partialTourContains1 = partialTourContains1;
+        this.lowerBound = lowerBound;
+        this.pathCost = pathCost;
     }
     
     TaskTsp( TaskTsp parentTask, Integer newCity )
     {
+        computer( parentTask.computer() ); // a subproblem solved in place reads the shared tour
+        contextId( parentTask.contextId() ); // and the dominance memo of its graph
+        jobId( parentTask.jobId() ); // of its job
+        distances = parentTask.distances();
         partialTourContains1 = parentTask.partialTourContains1 || newCity.equals( ONE );
         if ( ! partialTourContains1 && newCity.equals( TWO ) )
         {
@@ -107,12 +171,20 @@ public class TaskTsp extends TaskRecursive<Tour>
         }
         partialTour = new ArrayList<>( parentTask.partialTour );
         lowerBound = parentTask.lowerBound.make( parentTask, newCity );
+        pathCost = parentTask.pathCost + distances.distance( parentTask.partialTour.get( parentTask.partialTour.size() - 1 ), newCity );
         unvisitedCities = new LinkedList<>( parentTask.unvisitedCities ); 
         partialTour.add( newCity );
         unvisitedCities.remove( newCity );
     }
     
-    @Override public boolean isAtomic() { return unvisitedCities.size() <= MAX_UNVISITED_CITIES; }
+    /**
+     * @return true if and only if this subproblem is small enough to solve: 
+     * it has at most MAX_UNVISITED_CITIES unvisited cities, or Held-Karp would solve it.
+     */
+    @Override public boolean isAtomic() 
+    { 
+        return unvisitedCities.size() <= Math.max( MAX_UNVISITED_CITIES, MAX_HELD_KARP_CITIES ); 
+    }
     
     /**
      * Produce a tour of minimum cost from the set of tours, having as its
@@ -120,7 +192,24 @@ public class TaskTsp extends TaskRecursive<Tour>
      * followed by a permutation of the unvisited cities.
      * @return a tour of minimum cost.
      */
-     @Override public ReturnValue solve() 
+     @Override public ReturnValue<Tour> solve() { return new ReturnValueTour( this, leafSolver().solve( this ) ); }
+    
+    /**
+     * Held-Karp, whose cost is fixed, if this subproblem has at most MAX_HELD_KARP_CITIES unvisited cities; 
+     * otherwise, branch and bound, under any lower bound.
+     * @return the leaf solver for this subproblem.
+     */
+    private LeafSolver leafSolver()
+    {
+        return unvisitedCities.size() <= MAX_HELD_KARP_CITIES ? HELD_KARP : BRANCH_AND_BOUND;
+    }
+    
+    /**
+     * Depth-first search of the subproblems whose lower bound is less than the shortest tour's cost,
+     * a task per subproblem: the baseline that BranchAndBound is measured against.
+     * @return a tour of minimum cost, or the shared tour if none is shorter.
+     */
+    Tour search()
     {
         SharedTour sharedTour = ( SharedTour ) shared();
         List<Integer> shortestTour = sharedTour.tour();
@@ -144,7 +233,7 @@ public class TaskTsp extends TaskRecursive<Tour>
                 } 
             }  
         }
-        return new ReturnValueTour( this, new Tour( shortestTour, shortestTourCost ) );
+        return new Tour( shortestTour, shortestTourCost );
     }
 
     @Override public ReturnDecomposition divideAndConquer() 
@@ -154,6 +243,15 @@ public class TaskTsp extends TaskRecursive<Tour>
     
     public LowerBound lowerBound() { return lowerBound; }
     
+    DistanceMatrix distances() 
+    { 
+        if ( distances == null )
+        {
+            distances = ( (TspContext) context() ).distances();
+        }
+        return distances;
+    }
+    
     /**
      * Get children whose lower bound is less than the current upper bound.
      * @param upperBound
@@ -163,12 +261,56 @@ public class TaskTsp extends TaskRecursive<Tour>
     {
         return unvisitedCities.stream()
               .map( city -> new TaskTsp( this, city ))
-              .filter( child -> ! child.pruneMe && child.lowerBound().cost() < upperBound )
+              .filter( child -> ! child.pruneMe && child.lowerBound().cost() < upperBound 
+                             && ! ( DOMINANCE_PRUNING && child.isDominated() ) )
               .collect( Collectors.toList() );
     }
     
     public double cost() { return lowerBound().cost(); }
     
+    /**
+     * Best-first dispatch: the subproblem of least lower bound is the most promising.
+     * @return the cost of this task's lower bound.
+     */
+    @Override public double priority() { return lowerBound.cost(); }
+    
+    @Override public int depth() { return partialTour.size(); }
+    
+    /**
+     * @return true if and only if a partial tour of lesser cost visits the same cities and ends at the same city.
+     */
+    private boolean isDominated()
+    {
+        if ( partialTour.size() + unvisitedCities.size() > DominanceMemo.MAX_CITIES || contextId() == 0 )
+        {
+            return false;
+        }
+        long visited = 0L;
+        for ( int city : partialTour )
+        {
+            visited |= 1L << city;
+        }
+        return DominanceMemo.of( contextId() ).isDominated( visited, partialTour.get( partialTour.size() - 1 ), pathCost );
+    }
+    
+    /**
+     * A subproblem is useful if its lower bound is less than the shared tour's cost,
+     * and no partial tour of lesser cost visits the same cities and ends at the same city.
+     * Otherwise, no tour of this subproblem improves the shared tour, 
+     * so the shared tour stands in for this subproblem's minimum tour, as in MinTour.
+     * @param shared the job's SharedTour.
+     * @return the shared tour, as this task's return value, or null if this subproblem is useful.
+     */
+    @Override public Return prunedReturn( Shared<?> shared ) 
+    {
+        final SharedTour sharedTour = (SharedTour) shared;
+        if ( lowerBound.cost() < sharedTour.cost() && ! ( SPACE_DOMINANCE_PRUNING && isDominated() ) )
+        {
+            return null;
+        }
+        return new ReturnValueTour( this, new Tour( sharedTour.tour(), sharedTour.cost() ) );
+    }
+    
     public List<Integer> tour() { return partialTour; }
     
     @Override public String toString()
@@ -176,10 +318,11 @@ public class TaskTsp extends TaskRecursive<Tour>
         StringBuilder stringBuilder = new StringBuilder();
         stringBuilder.append( getClass() );
         stringBuilder.append( " Partial tour: \n" );
+        final double[][] cities = distances().cities();
         partialTour.stream().forEach( city -> 
         {
             stringBuilder.append( city ).append( ": " );
-            stringBuilder.append( CITIES[ city ][ 0 ] ).append( " " ).append( CITIES[ city ][ 1 ] ).append( '\n' );
+            stringBuilder.append( cities[ city ][ 0 ] ).append( " " ).append( cities[ city ][ 1 ] ).append( '\n' );
         } );
         stringBuilder.append( "\n\tUnvisited cities: " );
         unvisitedCities.forEach( city -> stringBuilder.append( city ).append( ' ' ) );
@@ -187,6 +330,10 @@ public class TaskTsp extends TaskRecursive<Tour>
     }
     
     public List<Integer> unvisitedCities() { return unvisitedCities; }
+    
+    boolean partialTourContains1() { return partialTourContains1; }
+    
+    double pathCost() { return pathCost; }
    
     private boolean isComplete() { return unvisitedCities == null || unvisitedCities.isEmpty(); }
 }
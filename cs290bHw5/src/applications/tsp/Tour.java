@@ -23,8 +23,14 @@
  */
 package applications.tsp;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
+import system.Codec;
+import system.Wire;
+import system.WireInput;
+import system.WireOutput;
 
 /**
  *
@@ -32,6 +38,25 @@ import java.util.List;
  */
 public class Tour implements Comparable<Tour>, Serializable
 {
+    static
+    {
+        Wire.register( Tour.class, new Codec<Tour>()
+        {
+            @Override
+            public void write( WireOutput out, Tour tour ) throws IOException 
+            {
+                out.writeInts( tour.tour );
+                out.writeDouble( tour.cost );
+            }
+
+            @Override
+            public Tour read( WireInput in ) throws IOException 
+            {
+                return new Tour( in.readInts( new ArrayList<>() ), in.readDouble() );
+            }
+        } );
+    }
+    
     final private List<Integer> tour;
     final private double cost;
     
@@ -0,0 +1,372 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 peter.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR ONE PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package applications.tsp;
+
+import api.Improver;
+import api.Space;
+import java.rmi.RemoteException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import util.DistanceMatrix;
+
+/**
+ * Iterated local search for a short tour, from which the branch and bound gets its upper bound early.
+ * 2-opt and Or-opt moves are tried only toward each city's nearest neighbors, 
+ * and only from cities whose don't-look bit is clear: 
+ * a city's bit is set when no move from it improves the tour, and cleared when a move changes its edges.
+ * At a local optimum, a random double bridge kicks the best tour, and local search resumes.
+ * Each better tour is pushed to the Space.
+ * @author Peter Cappello
+ */
+final public class TourImprover implements Improver
+{
+    static final private int    NUM_NEIGHBORS = 8;
+    static final private int    MAX_SEGMENT = 3; // cities moved by an Or-opt move
+    static final private int    MAX_FAILED_KICKS_PER_CITY = 100; // then out of ideas
+    static final private double EPSILON = 1e-10;
+    
+    final private DistanceMatrix distances;
+    final private List<Integer> initialTour;
+    final private int numCities;
+    final private int[][] neighbors; // by city: the nearest cities, nearest first
+    final private int[] tour;
+    final private int[] position; // by city: its index in tour
+    final private int[] scratch;
+    final private boolean[] dontLook;
+    final private Deque<Integer> active = new ArrayDeque<>(); // exactly the cities whose don't-look bit is clear
+    final private Random random = new Random( 0 );
+    
+    /**
+     * @param distances
+     * @param initialTour the tour from which to start: a permutation of the cities.
+     */
+    public TourImprover( final DistanceMatrix distances, final List<Integer> initialTour )
+    {
+        this.distances = distances;
+        this.initialTour = initialTour;
+        numCities = distances.size();
+        neighbors = new int[ numCities ][];
+        for ( int city = 0; city < numCities; city++ )
+        {
+            final int from = city;
+            neighbors[ city ] = IntStream.range( 0, numCities )
+                                         .filter( neighbor -> neighbor != from )
+                                         .boxed()
+                                         .sorted( Comparator.comparingDouble( neighbor -> distances.distance( from, neighbor ) ) )
+                                         .limit( NUM_NEIGHBORS )
+                                         .mapToInt( Integer::intValue )
+                                         .toArray();
+        }
+        tour = new int[ numCities ];
+        position = new int[ numCities ];
+        scratch = new int[ numCities ];
+        dontLook = new boolean[ numCities ];
+    }
+    
+    @Override
+    public void improve( final Space space, final int jobId ) throws RemoteException
+    {
+        if ( numCities < 5 )
+        {
+            return;
+        }
+        Arrays.fill( dontLook, true );
+        for ( int i = 0; i < numCities; i++ )
+        {
+            tour[ i ] = initialTour.get( i );
+            position[ tour[ i ] ] = i;
+            activate( tour[ i ] );
+        }
+        double bestCost = distances.tourDistance( initialTour );
+        final int[] bestTour = tour.clone();
+        localSearch();
+        if ( cost() < bestCost - EPSILON )
+        {
+            bestCost = cost();
+            System.arraycopy( tour, 0, bestTour, 0, numCities );
+            push( space, jobId );
+        }
+        for ( int failedKicks = 0; numCities >= 8 && failedKicks < MAX_FAILED_KICKS_PER_CITY * numCities 
+                                   && ! Thread.currentThread().isInterrupted(); )
+        {
+            doubleBridge();
+            localSearch();
+            final double cost = cost();
+            if ( cost < bestCost - EPSILON )
+            {
+                bestCost = cost;
+                System.arraycopy( tour, 0, bestTour, 0, numCities );
+                push( space, jobId );
+                failedKicks = 0;
+            }
+            else
+            {
+                System.arraycopy( bestTour, 0, tour, 0, numCities );
+                for ( int i = 0; i < numCities; i++ )
+                {
+                    position[ tour[ i ] ] = i;
+                }
+                failedKicks++;
+            }
+        }
+    }
+    
+    private void push( final Space space, final int jobId ) throws RemoteException
+    {
+        final List<Integer> startsWith0 = new ArrayList<>( numCities );
+        for ( int i = 0; i < numCities; i++ )
+        {
+            startsWith0.add( tour[ ( position[ 0 ] + i ) % numCities ] );
+        }
+        final SharedTour sharedTour = new SharedTour( startsWith0, distances.tourDistance( startsWith0 ) );
+        sharedTour.epoch( jobId );
+        space.upShared( sharedTour );
+    }
+    
+    private void localSearch()
+    {
+        while ( ! active.isEmpty() )
+        {
+            final int city = active.poll();
+            dontLook[ city ] = true;
+            if ( twoOpt( city ) || orOpt( city ) )
+            {
+                activate( city );
+            }
+        }
+    }
+    
+    /**
+     * Replace the edge from city to its successor (predecessor) and another edge
+     * with the edge from city to a near neighbor and the edge between their successors (predecessors).
+     * @return true if and only if an improving move was made.
+     */
+    private boolean twoOpt( final int city )
+    {
+        for ( boolean forward : new boolean[] { true, false } )
+        {
+            final int next = forward ? next( city ) : previous( city );
+            final double cityNext = distance( city, next );
+            for ( int neighbor : neighbors[ city ] )
+            {
+                final double cityNeighbor = distance( city, neighbor );
+                if ( cityNeighbor >= cityNext - EPSILON )
+                {
+                    break;
+                }
+                final int neighborNext = forward ? next( neighbor ) : previous( neighbor );
+                if ( neighbor == next || neighborNext == city )
+                {
+                    continue;
+                }
+                final double delta = cityNeighbor + distance( next, neighborNext ) - cityNext - distance( neighbor, neighborNext );
+                if ( delta < -EPSILON )
+                {
+                    if ( forward )
+                    {
+                        reverse( next, neighbor );
+                    }
+                    else
+                    {
+                        reverse( city, neighborNext );
+                    }
+                    activate( next );
+                    activate( neighbor );
+                    activate( neighborNext );
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Move the segment of at most MAX_SEGMENT cities that starts with city 
+     * between a near neighbor of one of its ends and an adjacent city, in either orientation.
+     * @return true if and only if an improving move was made.
+     */
+    private boolean orOpt( final int city )
+    {
+        int last = city;
+        for ( int length = 1; length <= MAX_SEGMENT && length <= numCities - 3; length++, last = next( last ) )
+        {
+            final int before = previous( city );
+            final int after = next( last );
+            final double removeGain = distance( before, city ) + distance( last, after ) - distance( before, after );
+            for ( int end : new int[] { city, last } )
+            {
+                final int otherEnd = end == city ? last : city;
+                for ( int neighbor : neighbors[ end ] )
+                {
+                    final double endNeighbor = distance( end, neighbor );
+                    if ( endNeighbor >= removeGain - EPSILON )
+                    {
+                        break;
+                    }
+                    if ( inSegment( neighbor, city, length ) )
+                    {
+                        continue;
+                    }
+                    final int neighborNext = next( neighbor );
+                    if ( neighbor != before 
+                      && endNeighbor + distance( otherEnd, neighborNext ) - distance( neighbor, neighborNext ) < removeGain - EPSILON )
+                    {
+                        move( city, length, neighbor, end );
+                        activateAll( before, after, city, last, neighbor, neighborNext );
+                        return true;
+                    }
+                    final int neighborPrevious = previous( neighbor );
+                    if ( neighbor != after 
+                      && endNeighbor + distance( otherEnd, neighborPrevious ) - distance( neighborPrevious, neighbor ) < removeGain - EPSILON )
+                    {
+                        move( city, length, neighborPrevious, otherEnd );
+                        activateAll( before, after, city, last, neighbor, neighborPrevious );
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+    
+    private boolean inSegment( final int city, final int first, final int length )
+    {
+        return ( position[ city ] - position[ first ] + numCities ) % numCities < length;
+    }
+    
+    /**
+     * Move the segment of length cities that starts with first 
+     * between city and its successor, with the segment's end adjacentEnd next to city.
+     */
+    private void move( final int first, final int length, final int city, final int adjacentEnd )
+    {
+        final int start = position[ first ];
+        final boolean reversed = adjacentEnd != first;
+        int size = 0;
+        for ( int i = length; i < numCities; i++ )
+        {
+            final int other = tour[ ( start + i ) % numCities ];
+            scratch[ size++ ] = other;
+            if ( other == city )
+            {
+                for ( int j = 0; j < length; j++ )
+                {
+                    scratch[ size++ ] = tour[ ( start + ( reversed ? length - 1 - j : j ) ) % numCities ];
+                }
+            }
+        }
+        System.arraycopy( scratch, 0, tour, 0, numCities );
+        for ( int i = 0; i < numCities; i++ )
+        {
+            position[ tour[ i ] ] = i;
+        }
+    }
+    
+    /**
+     * Reverse the path from city from to city to, in successor order, 
+     * or equivalently its complement, whichever is shorter.
+     */
+    private void reverse( final int from, final int to )
+    {
+        int i = position[ from ];
+        int j = position[ to ];
+        int length = ( j - i + numCities ) % numCities + 1;
+        if ( 2 * length > numCities )
+        {
+            final int complementStart = ( j + 1 ) % numCities;
+            j = ( i - 1 + numCities ) % numCities;
+            i = complementStart;
+            length = numCities - length;
+        }
+        for ( int k = 0; k < length / 2; k++ )
+        {
+            final int cityI = tour[ i ];
+            final int cityJ = tour[ j ];
+            tour[ i ] = cityJ;
+            position[ cityJ ] = i;
+            tour[ j ] = cityI;
+            position[ cityI ] = j;
+            i = ( i + 1 ) % numCities;
+            j = ( j - 1 + numCities ) % numCities;
+        }
+    }
+    
+    /**
+     * Cut the tour into 4 paths A B C D, and reconnect them as A C B D: a move that 2-opt and Or-opt cannot undo.
+     */
+    private void doubleBridge()
+    {
+        final int[] cuts = random.ints( 1, numCities ).distinct().limit( 3 ).sorted().toArray();
+        int size = 0;
+        for ( int[] path : new int[][] { { 0, cuts[ 0 ] }, { cuts[ 1 ], cuts[ 2 ] }, { cuts[ 0 ], cuts[ 1 ] }, { cuts[ 2 ], numCities } } )
+        {
+            for ( int i = path[ 0 ]; i < path[ 1 ]; i++ )
+            {
+                scratch[ size++ ] = tour[ i ];
+            }
+        }
+        for ( int i : new int[] { 0, cuts[ 0 ] - 1, cuts[ 0 ], cuts[ 1 ] - 1, cuts[ 1 ], cuts[ 2 ] - 1, cuts[ 2 ], numCities - 1 } )
+        {
+            activate( tour[ i ] );
+        }
+        System.arraycopy( scratch, 0, tour, 0, numCities );
+        for ( int i = 0; i < numCities; i++ )
+        {
+            position[ tour[ i ] ] = i;
+        }
+    }
+    
+    private double cost()
+    {
+        double cost = 0.0;
+        for ( int i = 0; i < numCities; i++ )
+        {
+            cost += distance( tour[ i ], tour[ ( i + 1 ) % numCities ] );
+        }
+        return cost;
+    }
+    
+    private void activate( final int city )
+    {
+        if ( dontLook[ city ] )
+        {
+            dontLook[ city ] = false;
+            active.add( city );
+        }
+    }
+    
+    private void activateAll( final int... cities ) { Arrays.stream( cities ).forEach( this::activate ); }
+    
+    private int next( final int city ) { return tour[ ( position[ city ] + 1 ) % numCities ]; }
+    
+    private int previous( final int city ) { return tour[ ( position[ city ] - 1 + numCities ) % numCities ]; }
+    
+    private double distance( final int city1, final int city2 ) { return distances.distance( city1, city2 ); }
+}
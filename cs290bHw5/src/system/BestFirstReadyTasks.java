@@ -0,0 +1,78 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Peter Cappello.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package system;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Semaphore;
+import java.util.function.Predicate;
+
+/**
+ * The ready tasks of a job, dispatched best first: 
+ * in increasing order of Task.priority, ties broken in decreasing order of Task.depth.
+ * A branch-and-bound job thus explores its most promising subproblems first, 
+ * tightening its upper bound sooner.
+ * Best-first order is job-wide, so a task does not stay with the computer whose batch made it ready.
+ * @author Peter Cappello
+ */
+class BestFirstReadyTasks extends ReadyTasks
+{
+    static final private Comparator<Task> BEST_FIRST = Comparator.comparingDouble( Task::priority )
+                                                                 .thenComparing( Comparator.comparingInt( Task::depth ).reversed() );
+    
+    final private PriorityQueue<Task> tasks = new PriorityQueue<>( 64, BEST_FIRST ); // guarded by this
+    
+    @Override
+    synchronized void add( Task task, int computerId ) { tasks.add( task ); }
+    
+    @Override
+    synchronized Task poll( int thiefId ) { return tasks.poll(); }
+    
+    @Override
+    void unregister( int computerId ) {}
+    
+    /**
+     * 1 pass over the queue, holding its lock, so no taker polls a task being removed.
+     */
+    @Override
+    synchronized List<Task> removeIf( Predicate<Task> predicate, Semaphore permits )
+    {
+        final List<Task> removed = new ArrayList<>();
+        tasks.removeIf( task -> 
+        {
+            if ( predicate.test( task ) && permits.tryAcquire() )
+            {
+                removed.add( task );
+                return true;
+            }
+            return false;
+        } );
+        return removed;
+    }
+    
+    @Override
+    synchronized int size() { return tasks.size(); }
+}
@@ -26,6 +26,7 @@ package system;
 import api.Shared;
 import java.rmi.Remote;
 import java.rmi.RemoteException;
+import java.util.List;
 
 /**
  *
@@ -35,5 +36,22 @@ public interface Computer extends Remote
 {        
     public Return execute( Task task ) throws RemoteException; 
     
-    void downShared( Shared shared ) throws RemoteException;
+    /**
+     * Execute a batch of Tasks in one remote call.
+     * @param tasks to be executed.
+     * @param spaceHasIdleWorkers true if and only if the Space has idle WorkerProxies, 
+     * in which case decompositions are returned to the Space rather than composed locally.
+     * @return the return values of the tasks' call methods, in the order of tasks.
+     * @throws RemoteException
+     */
+    public List<Return> executeBatch( List<Task> tasks, boolean spaceHasIdleWorkers ) throws RemoteException;
+    
+    void downShared( Shared<?> shared ) throws RemoteException;
+    
+    /**
+     * Forget the shared object of a job that is done.
+     * @param jobId the id of the job.
+     * @throws RemoteException
+     */
+    void jobDone( int jobId ) throws RemoteException;
 }
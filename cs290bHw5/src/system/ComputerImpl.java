@@ -26,10 +26,18 @@ import api.*;
 import java.rmi.Naming;
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import static system.Configuration.NIO_PORT;
+import static system.Configuration.NIO_TRANSPORT;
+import static system.Configuration.WIRE_CODECS;
 
 /**
  * An implementation of the Remote Computer interface.
@@ -37,90 +45,269 @@ import java.util.logging.Logger;
  */
 public class ComputerImpl extends UnicastRemoteObject implements Computer
 {
-    final private SpaceProxy spaceProxy;
-    //!! delete sharedLock & test to ensure its OK.
-    final private Boolean sharedLock = true;
-          private Shared shared;
+    final private ComputerSpace space;
+    final private SharedChannel upSharedChannel; // to the Space
+    final private ForkJoinPool localPool = new ForkJoinPool( Runtime.getRuntime().availableProcessors() );
+          private volatile boolean spaceHasIdleWorkers;
+    
+    final private Map<Long, JobContext> contexts = new ConcurrentHashMap<>(); // fetched from the Space once each
+    final private Map<Integer, Shared<?>> shareds = new ConcurrentHashMap<>(); // by job id; immutable: replaced by a newer one, so tasks read them without locking
            
-    public ComputerImpl( Space space ) throws RemoteException
+    public ComputerImpl( ComputerSpace space ) throws RemoteException
     {
         Logger.getLogger( this.getClass().getCanonicalName() )
               .log(Level.INFO, "Computer: started with {0} available processors.", Runtime.getRuntime().availableProcessors() );
-        spaceProxy = new SpaceProxy( space );
-        spaceProxy.start();
+        this.space = space;
+        upSharedChannel = new SharedChannel( "Computer up shared", space::upShared, Executors.newSingleThreadExecutor( runnable -> 
+        {
+            final Thread thread = new Thread( runnable, "Computer up shared" );
+            thread.setDaemon( true );
+            return thread;
+        } ) );
     }
          
     /**
      * Execute a Task.
+     * If the Task decomposes into a locally composable compose task, 
+     * and there is no surplus work to export, 
+     * its children and compose task are executed in this Computer's local pool, 
+     * and the return value of the compose task is returned.
      * @param task to be executed.
-     * @return the return value of the Task call method.
+     * @return the return value of the Task call method, or of its local composition.
      * @throws RemoteException
      */
     @Override
     public Return execute( Task task ) throws RemoteException 
     { 
+        final long startTime = System.nanoTime();
+        Return returnValue = call( task );
+        if ( returnValue instanceof ReturnDecomposition 
+          && ( (ReturnDecomposition) returnValue ).compose().isLocallyComposable() && ! exportSurplus() )
+        {
+            final ReturnValue<?> localReturnValue = localPool.invoke( new LocalTask( task, (ReturnDecomposition) returnValue ) );
+            if ( localReturnValue != null )
+            {   // otherwise, the subtree has a compose task that only the Space may compose.
+                localReturnValue.taskRunTime( System.nanoTime() - startTime );
+                return localReturnValue;
+            }
+        }
+        return returnValue;
+    }
+    
+    /**
+     * Execute a batch of Tasks.
+     * A shared object that piggybacks on the batch is accepted before its tasks are executed;
+     * a pending update of this Computer's shared object piggybacks on the returns.
+     * @param tasks to be executed.
+     * @param spaceHasIdleWorkers true if and only if the Space has idle WorkerProxies.
+     * @return the return values of the tasks' call methods, in the order of tasks.
+     * @throws RemoteException
+     */
+    @Override
+    public List<Return> executeBatch( List<Task> tasks, boolean spaceHasIdleWorkers ) throws RemoteException 
+    { 
+        this.spaceHasIdleWorkers = spaceHasIdleWorkers;
+        if ( tasks instanceof WireList && ( (WireList) tasks ).shared() != null )
+        {
+            downShared( ( (WireList) tasks ).shared() );
+        }
+        final List<Return> returns = new ArrayList<>( tasks.size() );
+        for ( Task task : tasks )
+        {
+            returns.add( execute( task ) );
+        }
+        return WIRE_CODECS ? new WireList<>( returns, upSharedChannel.take() ) : returns;
+    }
+    
+    /**
+     * Call a Task, measuring its run time.
+     * T1 and Tinf of an atomic task are its run time.
+     * @param task to be called.
+     * @return the return value of the Task call method.
+     */
+    private Return call( Task task )
+    {
         final long startTime = System.nanoTime();
         task.computer( this );
         final Return returnValue = task.call();
-        final long runTime = ( System.nanoTime() - startTime ); // milliseconds
-        returnValue.taskRunTime( runTime );       
+        final long runTime = ( System.nanoTime() - startTime ); // nanoseconds
+        returnValue.taskRunTime( runTime );
+        returnValue.t1( runTime );
+        returnValue.tInf( runTime );
         return returnValue;
     }
     
+    /**
+     * Return decompositions to the Space when the Space has idle WorkerProxies 
+     * or when the local pool is saturated: tasks are waiting for a pool thread.
+     * @return true if and only if a decomposition is to be returned to the Space.
+     */
+    private boolean exportSurplus() 
+    { 
+        return spaceHasIdleWorkers || localPool.hasQueuedSubmissions(); 
+    }
+    
     public static void main( String[] args ) throws Exception
     {
         System.setSecurityManager( new SecurityManager() );
         final String domainName = args.length == 0 ? "localhost" : args[ 0 ];
         final String url = "rmi://" + domainName + ":" + Space.PORT + "/" + Space.SERVICE_NAME;
-        final Space space = (Space) Naming.lookup( url );
+        final ComputerSpace space = NIO_TRANSPORT ? new NioSpace( domainName, NIO_PORT ) : (ComputerSpace) Naming.lookup( url );
         space.register( new ComputerImpl( space ), Runtime.getRuntime().availableProcessors() );
     }
         
-    public Shared shared() { synchronized ( sharedLock ) { return shared; } }
+    /**
+     * @param jobId the id of a running job.
+     * @return the job's shared object, or null if it has none.
+     */
+    public Shared<?> shared( int jobId ) { return shareds.get( jobId ); }
     
-    public void upShared( Shared that )
+    /**
+     * Get a job context, fetching it from the Space the first time it is asked for.
+     * It is fetched outside the map, so that a slow fetch blocks no other context's lookup;
+     * concurrent first fetches of a context keep the first.
+     * @param contextId the id of the job context.
+     * @return the job context.
+     */
+    public JobContext context( long contextId )
     {
-        if ( shared.shared( that ) )
+        final JobContext cached = contexts.get( contextId );
+        if ( cached != null )
         {
-            spaceProxy.upShared();
+            return cached;
         }
+        final JobContext context;
+        try { context = space.context( contextId ); }
+        catch ( RemoteException ex ) 
+        {
+            throw new IllegalStateException( "Could not fetch job context " + contextId, ex );
+        }
+        if ( context == null )
+        {
+            throw new IllegalStateException( "No job context " + contextId + " is registered." );
+        }
+        final JobContext previous = contexts.putIfAbsent( contextId, context );
+        return previous == null ? context : previous;
     }
     
-    @Override
-    public void downShared( Shared that ) 
-    { 
-        if ( shared == null )
+    /**
+     * Share a shared object that a task made: stamp it with the epoch of the task's job;
+     * if it is newer, replace the job's current one and send its first tier to the Space.
+     * A job that is done, and so forgotten, is not remembered again.
+     * @param jobId the id of the job of the task that made it.
+     * @param that 
+     */
+    public void upShared( int jobId, Shared<?> that )
+    {
+        that.epoch( jobId );
+        if ( shareds.containsKey( jobId ) && replaceShared( that ) )
         {
-            shared = that;
+            upSharedChannel.offer( that );
         }
-        else
+    }
+    
+    @Override
+    public void downShared( Shared<?> that ) { replaceShared( that ); }
+    
+    @Override
+    public void jobDone( int jobId ) { shareds.remove( jobId ); }
+    
+    /**
+     * @param that replaces the current shared object of its job, if that is newer.
+     * @return true if and only if that replaced the current shared object of its job.
+     */
+    private boolean replaceShared( Shared<?> that )
+    {
+        final int jobId = (int) that.epoch();
+        for ( ;; )
         {
-            shared.shared( that ); 
+            final Shared<?> current = shareds.get( jobId );
+            if ( current != null && ! current.isOlderThan( that ) )
+            {
+                return false;
+            }
+            if ( current == null ? shareds.putIfAbsent( jobId, that ) == null : shareds.replace( jobId, current, that ) )
+            {
+                return true;
+            }
         }
     }
     
-    private class SpaceProxy extends Thread
+    /**
+     * Execute a Task's subtree in the local pool: 
+     * call the Task; if it decomposes, fork its children and, when they are done,
+     * set the args of its compose task and call it.
+     * Its T1 and Tinf are computed as in ReturnValue.process.
+     * If a compose task of the subtree is not locally composable, it returns null, 
+     * and the Task's decomposition is returned to the Space instead.
+     */
+    private class LocalTask extends RecursiveTask<ReturnValue<?>>
     {
-        final private Space space;
-        final private BlockingQueue<Boolean> upSharedQ = new LinkedBlockingQueue<>(); 
+        static final private long serialVersionUID = 1L;
+        
+        final private Task task;
+              private ReturnDecomposition decomposition;
         
-        SpaceProxy( Space space ) { this.space = space; }
+        LocalTask( Task task ) { this.task = task; }
+        
+        LocalTask( Task task, ReturnDecomposition decomposition ) 
+        { 
+            this.task = task;
+            this.decomposition = decomposition; 
+        }
         
         @Override
-        public void run()
+        protected ReturnValue<?> compute()
         {
-            try { upSharedQ.take(); } 
-            catch (InterruptedException ex) 
+            if ( decomposition == null )
+            {
+                final Return returnValue = call( task );
+                if ( returnValue instanceof ReturnValue )
+                {
+                    return (ReturnValue<?>) returnValue;
+                }
+                decomposition = (ReturnDecomposition) returnValue;
+            }
+            @SuppressWarnings( "unchecked" ) // its args are its children's values
+            final TaskCompose<Object> compose = decomposition.compose();
+            if ( ! compose.isLocallyComposable() )
             {
-                Logger.getLogger(ComputerImpl.class.getName()).log(Level.SEVERE, null, ex);
+                return null;
             }
-            try { space.upShared( shared.duplicate() ); } 
-            catch ( RemoteException ex ) 
+            final List<? extends Task> tasks = decomposition.tasks();
+            compose.composeId( task.composeId() );
+            compose.composeArgNum( task.composeArgNum() );
+            compose.contextId( task.contextId() );
+            compose.jobId( task.jobId() );
+            compose.numArgs( tasks.size() );
+            compose.decomposeTaskRunTime( decomposition.taskRunTime() );
+            final List<LocalTask> children = new ArrayList<>( tasks.size() );
+            tasks.forEach( child -> 
             {
-                Logger.getLogger( ComputerImpl.class.getName() ).log( Level.SEVERE, null, ex );
+                child.contextId( task.contextId() );
+                child.jobId( task.jobId() );
+                children.add( new LocalTask( child ) );
+            } );
+            invokeAll( children );
+            for ( LocalTask child : children )
+            {
+                if ( child.join() == null )
+                {
+                    return null;
+                }
+            }
+            for ( int i = 0; i < children.size(); i++ )
+            {
+                final ReturnValue<?> childReturnValue = children.get( i ).join();
+                compose.sumChildT1( childReturnValue.t1() );
+                compose.maxChildTInf( childReturnValue.tInf() );
+                compose.arg( i, childReturnValue.value() );
             }
+            final ReturnValue<?> returnValue = (ReturnValue<?>) call( compose );
+            final long commonTime = compose.decomposeTaskRunTime() + returnValue.taskRunTime();
+            returnValue.t1(   commonTime + compose.sumChildT1() );
+            returnValue.tInf( commonTime + compose.maxChildTInf() );
+            return returnValue;
         }
-        
-        synchronized private void upShared() { upSharedQ.add( Boolean.TRUE ); }
     }
 }
@@ -0,0 +1,59 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Peter Cappello.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package system;
+
+import api.JobContext;
+import api.Shared;
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+
+/**
+ * The Space, as its Computers see it: the requests that a Computer makes of the Space.
+ * Clients see the Space as an api.Space, which extends this.
+ * @author Peter Cappello
+ */
+public interface ComputerSpace extends Remote
+{
+    /**
+     *
+     * @param computer
+     * @param numWorkerProxies
+     * @throws RemoteException
+     */
+    void register( final Computer computer, int numWorkerProxies ) throws RemoteException;
+    
+    /**
+     * Offer a newer shared object to the Space, which sends it to the other Computers.
+     * @param shared the shared object, stamped with its job's id as its epoch.
+     * @throws RemoteException
+     */
+    void upShared( Shared<?> shared ) throws RemoteException;
+    
+    /**
+     * @param contextId the id of a registered job context.
+     * @return the job context whose id is contextId, or null if none is registered.
+     * @throws RemoteException
+     */
+    JobContext context( long contextId ) throws RemoteException;
+}
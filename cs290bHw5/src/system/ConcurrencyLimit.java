@@ -0,0 +1,77 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Peter Cappello.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package system;
+
+/**
+ * The number of batches that may be in flight to a computer at once, 
+ * adjusted to its observed latency by a gradient: while a batch's per task
+ * round trip time is the computer's no load round trip time, its least observed one,
+ * the limit grows by about its square root; as batches queue at the computer,
+ * their round trip time grows, and the limit shrinks in proportion.
+ * Since tasks of different jobs differ in cost, the no load round trip time is
+ * observed anew for each job.
+ * @author Peter Cappello
+ */
+final class ConcurrencyLimit 
+{
+    static final private double SMOOTHING = 0.2;
+    static final private double MIN_GRADIENT = 0.5;
+    
+    final private int maxLimit;
+          private double limit;
+          private double noLoadRoundTripTime = Double.MAX_VALUE; // nanoseconds per task
+    
+    /**
+     * @param initialLimit the limit before any round trip time is observed.
+     * @param maxLimit the largest limit.
+     */
+    ConcurrencyLimit( int initialLimit, int maxLimit )
+    {
+        this.limit = initialLimit;
+        this.maxLimit = maxLimit;
+    }
+    
+    synchronized int limit() { return (int) limit; }
+    
+    /**
+     * Forget the no load round trip time, when a job starts.
+     */
+    synchronized void reset() { noLoadRoundTripTime = Double.MAX_VALUE; }
+    
+    /**
+     * Adjust the limit to a batch's round trip time.
+     * @param roundTripTime the batch's round trip time, in nanoseconds.
+     * @param numTasks the number of tasks in the batch.
+     * @return the adjusted limit.
+     */
+    synchronized int sample( long roundTripTime, int numTasks )
+    {
+        final double roundTripTimePerTask = (double) roundTripTime / numTasks;
+        noLoadRoundTripTime = Math.min( noLoadRoundTripTime, roundTripTimePerTask );
+        final double gradient = Math.max( MIN_GRADIENT, noLoadRoundTripTime / roundTripTimePerTask );
+        final double newLimit = limit * gradient + Math.sqrt( limit );
+        limit = Math.max( 1, Math.min( maxLimit, ( 1 - SMOOTHING ) * limit + SMOOTHING * newLimit ) );
+        return (int) limit;
+    }
+}
@@ -31,4 +31,9 @@ public interface Configuration
 {
     static final public boolean SPACE_CALLABLE  = true;
     static final public boolean MULTI_COMPUTERS = true;
+    static final public boolean WIRE_CODECS     = true; // batches cross the wire as WireLists
+    static final public boolean NIO_TRANSPORT   = false; // Space <-> Computer traffic over NioLinks, rather than RMI
+    static final public int     NIO_PORT        = 8002; // the port on which the Space accepts NioLinks
+    static final public boolean ADAPTIVE_WORKERS = false; // pooled batch threads, limited per computer by its latency, rather than WorkerProxies
+    static final public boolean BEST_FIRST_DISPATCH = false; // a job's ready tasks are dispatched in Task.priority order, rather than LIFO
 }
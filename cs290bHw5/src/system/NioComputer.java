@@ -0,0 +1,123 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Peter Cappello.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package system;
+
+import api.Shared;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.rmi.RemoteException;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import static system.NioLink.*;
+
+/**
+ * The Space's proxy for a Computer connected by an NioLink.
+ * It serves the Computer's requests of the Space, and sends the Space's requests 
+ * of the Computer; a link failure is thrown as a RemoteException, 
+ * so the Space unregisters the Computer as it does for RMI.
+ * @author Peter Cappello
+ */
+final class NioComputer implements Computer
+{
+    final private SpaceImpl space;
+    final private NioLink link;
+    
+    private NioComputer( SpaceImpl space, SocketChannel channel ) throws IOException
+    {
+        this.space = space;
+        link = new NioLink( channel, this::handle );
+    }
+    
+    /**
+     * Accept Computer connections on a port, in a daemon thread.
+     * A Computer is registered when its HELLO frame arrives.
+     * @param space the Space with which the Computers register.
+     * @param port the port on which connections are accepted.
+     * @throws IOException if the port cannot be bound.
+     */
+    static void listen( SpaceImpl space, int port ) throws IOException
+    {
+        final ServerSocketChannel server = ServerSocketChannel.open();
+        server.bind( new InetSocketAddress( port ) );
+        final Thread acceptor = new Thread( () -> 
+        {
+            while ( server.isOpen() )
+            {
+                try { new NioComputer( space, server.accept() ).link.start(); } 
+                catch ( IOException ex ) 
+                {
+                    Logger.getLogger( NioComputer.class.getName() )
+                          .log( Level.WARNING, null, ex );
+                }
+            }
+        }, "NioComputer acceptor" );
+        acceptor.setDaemon( true );
+        acceptor.start();
+    }
+    
+    private Object handle( byte type, Object payload ) throws RemoteException
+    {
+        switch ( type )
+        {
+            case HELLO: 
+                space.register( this, (Integer) payload ); 
+                return null;
+            case UP_SHARED: 
+                space.upShared( (Shared<?>) payload ); 
+                return null;
+            case CONTEXT: 
+                return space.context( (Long) payload );
+            default: 
+                throw new IllegalArgumentException( "Unexpected frame type " + type );
+        }
+    }
+    
+    @Override
+    public Return execute( Task task ) throws RemoteException { return (Return) call( EXECUTE, task ); }
+
+    @Override
+    @SuppressWarnings( "unchecked" ) // the Computer returns a List<Return>
+    public List<Return> executeBatch( List<Task> tasks, boolean spaceHasIdleWorkers ) throws RemoteException
+    {
+        return (List<Return>) call( EXECUTE_BATCH, new Object[]{ tasks, spaceHasIdleWorkers } );
+    }
+
+    @Override
+    public void downShared( Shared<?> shared ) throws RemoteException { call( DOWN_SHARED, shared ); }
+    
+    @Override
+    public void jobDone( int jobId ) throws RemoteException { call( JOB_DONE, jobId ); }
+    
+    private Object call( byte type, Object payload ) throws RemoteException
+    {
+        try { return link.call( type, payload ); } 
+        catch ( IOException ex ) 
+        { 
+            throw new RemoteException( "NIO link to Computer failed.", ex ); 
+        }
+    }
+}
@@ -0,0 +1,339 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Peter Cappello.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package system;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A multiplexed link between the Space and a Computer over a non-blocking SocketChannel,
+ * served by its own selector thread.
+ * A frame is its length, a type, a request id, and a serialized payload; 
+ * since batches are WireLists, their tasks and returns are encoded by their codecs.
+ * Many requests may be outstanding: a REPLY or FAILURE frame completes the request 
+ * with its id. Requests are handled by a pool thread, so that a handler may itself
+ * make requests of the other end.
+ * @author Peter Cappello
+ */
+final class NioLink extends Thread
+{
+    static final byte HELLO         = 1; // Computer to Space: the number of processors
+    static final byte EXECUTE_BATCH = 2; // Space to Computer: a batch of tasks, and whether the Space has idle workers
+    static final byte EXECUTE       = 3; // Space to Computer: a task
+    static final byte DOWN_SHARED   = 4; // Space to Computer: a shared object
+    static final byte UP_SHARED     = 5; // Computer to Space: a shared object
+    static final byte CONTEXT       = 6; // Computer to Space: a job context id
+    static final byte REPLY         = 7;
+    static final byte FAILURE       = 8;
+    static final byte JOB_DONE      = 9; // Space to Computer: the id of a job that is done
+    
+    static final private int HEADER_SIZE = 1 + 4; // type and request id, following the length
+    static final private int READ_BUFFER_SIZE = 1 << 16;
+    
+    /**
+     * Handles the request frames received on a link.
+     */
+    interface Handler 
+    { 
+        /**
+         * @param type the frame type.
+         * @param payload the deserialized payload.
+         * @return the payload of the reply.
+         * @throws Exception sent to the requester as the payload of a FAILURE frame.
+         */
+        Object handle( byte type, Object payload ) throws Exception; 
+    }
+    
+    final private SocketChannel channel;
+    final private Selector selector;
+    final private SelectionKey key;
+    final private Handler handler;
+    final private Queue<ByteBuffer> outQ = new ArrayDeque<>(); // guarded by itself
+    final private Map<Integer, CompletableFuture<Frame>> requests = new ConcurrentHashMap<>();
+    final private AtomicInteger requestIds = new AtomicInteger();
+    final private ExecutorService handlers = Executors.newCachedThreadPool( runnable -> 
+    {
+        final Thread thread = new Thread( runnable );
+        thread.setDaemon( true );
+        return thread;
+    } );
+          private ByteBuffer readBuffer = ByteBuffer.allocate( READ_BUFFER_SIZE );
+          private volatile boolean closed;
+    
+    NioLink( SocketChannel channel, Handler handler ) throws IOException
+    {
+        super( "NioLink " + channel.getRemoteAddress() );
+        this.channel = channel;
+        this.handler = handler;
+        channel.setOption( StandardSocketOptions.TCP_NODELAY, true );
+        channel.configureBlocking( false );
+        selector = Selector.open();
+        key = channel.register( selector, SelectionKey.OP_READ );
+    }
+    
+    /**
+     * Send a request and wait for its reply.
+     * @param type the frame type.
+     * @param payload the request's payload.
+     * @return the payload of the reply.
+     * @throws IOException if the link fails, or the request's handler threw an exception.
+     */
+    Object call( byte type, Object payload ) throws IOException
+    {
+        final int requestId = requestIds.incrementAndGet();
+        final CompletableFuture<Frame> reply = new CompletableFuture<>();
+        requests.put( requestId, reply );
+        if ( closed )
+        {   // close may have failed the outstanding requests before this one was put.
+            requests.remove( requestId );
+            throw new IOException( "NIO link is closed." );
+        }
+        send( type, requestId, payload );
+        final Frame frame;
+        try { frame = reply.get(); }
+        catch ( InterruptedException ex ) 
+        { 
+            requests.remove( requestId );
+            throw new InterruptedIOException(); 
+        }
+        catch ( ExecutionException ex ) { throw new IOException( ex.getCause() ); }
+        final Object value = deserialize( frame.payload );
+        if ( frame.type == FAILURE )
+        {
+            throw new IOException( "Request failed at the other end.", (Throwable) value );
+        }
+        return value;
+    }
+    
+    /**
+     * Write a frame, queueing what the socket does not accept for the selector thread to write.
+     */
+    private void send( byte type, int requestId, Object payload ) throws IOException
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write( new byte[ 4 + HEADER_SIZE ] ); // placeholder for the header
+        try ( ObjectOutputStream out = new ObjectOutputStream( bytes ) )
+        {
+            out.writeObject( payload );
+        }
+        final ByteBuffer frame = ByteBuffer.wrap( bytes.toByteArray() );
+        frame.putInt( frame.capacity() - 4 ).put( type ).putInt( requestId ).rewind();
+        if ( closed )
+        {
+            throw new IOException( "NIO link is closed." );
+        }
+        synchronized ( outQ )
+        {   // write directly when no frame is queued ahead: this saves a hand off to the selector thread.
+            if ( outQ.isEmpty() )
+            {
+                channel.write( frame );
+                if ( ! frame.hasRemaining() )
+                {
+                    return;
+                }
+            }
+            outQ.add( frame );
+        }
+        selector.wakeup();
+    }
+    
+    @Override
+    public void run()
+    {
+        try 
+        {
+            while ( true )
+            {
+                synchronized ( outQ )
+                {
+                    key.interestOps( outQ.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE );
+                }
+                selector.select();
+                if ( selector.selectedKeys().remove( key ) )
+                {
+                    if ( key.isReadable() )
+                    {
+                        read();
+                    }
+                    if ( key.isWritable() )
+                    {
+                        write();
+                    }
+                }
+            }
+        }
+        catch ( IOException ex ) 
+        {
+            Logger.getLogger( getClass().getName() )
+                  .log( Level.WARNING, "{0} closed: {1}", new Object[]{ getName(), ex } );
+        }
+        finally { close(); }
+    }
+    
+    /**
+     * Read what is available, then dispatch each whole frame: 
+     * a reply completes its request; a request is handed to a handler thread.
+     */
+    private void read() throws IOException
+    {
+        if ( channel.read( readBuffer ) < 0 )
+        {
+            throw new EOFException();
+        }
+        readBuffer.flip();
+        int frameSize = 0;
+        while ( readBuffer.remaining() >= 4 )
+        {
+            frameSize = 4 + readBuffer.getInt( readBuffer.position() );
+            if ( readBuffer.remaining() < frameSize )
+            {
+                break;
+            }
+            readBuffer.getInt();
+            final byte type = readBuffer.get();
+            final int requestId = readBuffer.getInt();
+            final byte[] payload = new byte[ frameSize - 4 - HEADER_SIZE ];
+            readBuffer.get( payload );
+            dispatch( new Frame( type, requestId, payload ) );
+            frameSize = 0;
+        }
+        readBuffer.compact();
+        if ( frameSize > readBuffer.capacity() )
+        {   // the next frame is larger than the buffer.
+            readBuffer.flip();
+            readBuffer = ByteBuffer.allocate( Math.max( frameSize, 2 * readBuffer.capacity() ) ).put( readBuffer );
+        }
+    }
+    
+    private void dispatch( Frame frame )
+    {
+        if ( frame.type == REPLY || frame.type == FAILURE )
+        {
+            final CompletableFuture<Frame> request = requests.remove( frame.requestId );
+            if ( request != null )
+            {
+                request.complete( frame );
+            }
+            return;
+        }
+        handlers.execute( () -> 
+        {
+            Object reply;
+            byte replyType = REPLY;
+            try { reply = handler.handle( frame.type, deserialize( frame.payload ) ); }
+            catch ( Exception ex ) 
+            { 
+                reply = ex; 
+                replyType = FAILURE; 
+            }
+            try { send( replyType, frame.requestId, reply ); }
+            catch ( IOException ex ) 
+            {
+                Logger.getLogger( getClass().getName() )
+                      .log( Level.WARNING, null, ex );
+            }
+        } );
+    }
+    
+    /**
+     * Write the queued frames with one gathering write, as far as the socket allows.
+     */
+    private void write() throws IOException
+    {
+        synchronized ( outQ )
+        {
+            final ByteBuffer[] frames = outQ.toArray( new ByteBuffer[ 0 ] );
+            channel.write( frames );
+            for ( ByteBuffer frame : frames )
+            {
+                if ( frame.hasRemaining() )
+                {
+                    return;
+                }
+                outQ.remove();
+            }
+        }
+    }
+    
+    /**
+     * Close the link, failing its outstanding requests.
+     */
+    void close()
+    {
+        closed = true;
+        try 
+        { 
+            channel.close(); 
+            selector.close();
+        } 
+        catch ( IOException ignore ) {}
+        handlers.shutdown();
+        requests.values().forEach( request -> request.completeExceptionally( new IOException( "NIO link is closed." ) ) );
+        requests.clear();
+    }
+    
+    static private Object deserialize( byte[] payload ) throws IOException
+    {
+        try ( ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( payload ) ) )
+        {
+            return in.readObject();
+        }
+        catch ( ClassNotFoundException ex ) { throw new IOException( ex ); }
+    }
+    
+    static final private class Frame
+    {
+        final private byte type;
+        final private int requestId;
+        final private byte[] payload;
+        
+        private Frame( byte type, int requestId, byte[] payload )
+        {
+            this.type = type;
+            this.requestId = requestId;
+            this.payload = payload;
+        }
+    }
+}
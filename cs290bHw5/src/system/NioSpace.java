@@ -0,0 +1,114 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Peter Cappello.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package system;
+
+import api.JobContext;
+import api.Shared;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.rmi.RemoteException;
+import java.util.List;
+import static system.NioLink.*;
+
+/**
+ * A Computer's stub for a Space connected by an NioLink.
+ * It carries the Computer's requests of the Space, and serves the Space's requests 
+ * of the Computer. Clients submit jobs via RMI.
+ * @author Peter Cappello
+ */
+final class NioSpace implements ComputerSpace
+{
+    final private NioLink link;
+          private volatile Computer computer;
+    
+    /**
+     * Connect to a Space.
+     * @param domainName the Space's domain name.
+     * @param port the port on which the Space accepts Computer connections.
+     * @throws IOException if the connection fails.
+     */
+    NioSpace( String domainName, int port ) throws IOException
+    {
+        link = new NioLink( SocketChannel.open( new InetSocketAddress( domainName, port ) ), this::handle );
+        link.start();
+    }
+    
+    private Object handle( byte type, Object payload ) throws RemoteException
+    {
+        if ( computer == null )
+        {
+            throw new IllegalStateException( "No Computer is registered." );
+        }
+        switch ( type )
+        {
+            case EXECUTE_BATCH: 
+                final Object[] args = (Object[]) payload;
+                @SuppressWarnings( "unchecked" ) // the Space sends a List<Task>
+                final List<Task> tasks = (List<Task>) args[ 0 ];
+                return computer.executeBatch( tasks, (Boolean) args[ 1 ] );
+            case EXECUTE: 
+                return computer.execute( (Task) payload );
+            case DOWN_SHARED: 
+                computer.downShared( (Shared<?>) payload ); 
+                return null;
+            case JOB_DONE: 
+                computer.jobDone( (Integer) payload ); 
+                return null;
+            default: 
+                throw new IllegalArgumentException( "Unexpected frame type " + type );
+        }
+    }
+    
+    /**
+     * Register the Computer with the Space: the Space then sends it tasks over this link.
+     * @param computer the Computer that serves the Space's requests.
+     * @param numProcessors the Computer's number of processors.
+     * @throws RemoteException 
+     */
+    @Override
+    public void register( Computer computer, int numProcessors ) throws RemoteException
+    {
+        this.computer = computer;
+        call( HELLO, numProcessors );
+    }
+
+    @Override
+    public void upShared( Shared<?> shared ) throws RemoteException { call( UP_SHARED, shared ); }
+
+    @Override
+    public JobContext context( long contextId ) throws RemoteException 
+    { 
+        return (JobContext) call( CONTEXT, contextId ); 
+    }
+    
+    private Object call( byte type, Object payload ) throws RemoteException
+    {
+        try { return link.call( type, payload ); } 
+        catch ( IOException ex ) 
+        { 
+            throw new RemoteException( "NIO link to Space failed.", ex ); 
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Peter Cappello.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package system;
+
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.function.Predicate;
+
+/**
+ * The ready tasks of a job. 
+ * The Space holds 1 permit per ready task: a taker acquires one before it polls,
+ * so a poll by a permit holder finds a task.
+ * @author Peter Cappello
+ */
+abstract class ReadyTasks 
+{
+    static final public int NO_COMPUTER = -1;
+    
+    /**
+     * @param task the ready task.
+     * @param computerId the id of the computer whose batch made it ready, or NO_COMPUTER.
+     */
+    abstract void add( Task task, int computerId );
+    
+    /**
+     * @param thiefId the id of the computer that is taking a task.
+     * @return a ready task, or null if there is none.
+     */
+    abstract Task poll( int thiefId );
+    
+    /**
+     * Keep a failed computer's ready tasks for the other computers.
+     * @param computerId the id of the failed computer.
+     */
+    abstract void unregister( int computerId );
+    
+    /**
+     * Remove the ready tasks that satisfy a predicate. 
+     * A task is removed only with its permit, which is acquired from permits: 
+     * no taker holding a permit is left without a task.
+     * @param predicate
+     * @param permits 1 permit per ready task.
+     * @return the removed tasks.
+     */
+    abstract List<Task> removeIf( Predicate<Task> predicate, Semaphore permits );
+    
+    abstract int size();
+}
@@ -23,6 +23,7 @@
  */
 package system;
 
+import java.io.IOException;
 import java.io.Serializable;
 
 /**
@@ -44,6 +45,23 @@ abstract public class Return implements Serializable
     public long tInf() { return tInf; }
     public void tInf( long tInf ) { this.tInf = tInf; }
         
+    /**
+     * Write the Return fields: WireOutput writes them after the subclass's codec writes its fields.
+     */
+    void write( WireOutput out ) throws IOException
+    {
+        out.writeVarLong( taskRunTime );
+        out.writeVarLong( t1 );
+        out.writeVarLong( tInf );
+    }
+    
+    void read( WireInput in ) throws IOException
+    {
+        taskRunTime = in.readVarLong();
+        t1 = in.readVarLong();
+        tInf = in.readVarLong();
+    }
+    
     /**
      *
      * @param task the task whose Result is to be processed.
@@ -0,0 +1,239 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Peter Cappello.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package system;
+
+import api.Shared;
+import java.rmi.RemoteException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A one-way channel for the updates of the shared objects of jobs, keyed by job id.
+ * A burst of updates of a job's shared object is coalesced into 1 send of the first tier 
+ * of the newest, by a thread of the channel's executor, which many channels may share.
+ * A pending update may instead be taken, to piggyback on a batch.
+ * Latency is measured from the first offer of a pending update to the completion of its send.
+ * @author Peter Cappello
+ */
+final class SharedChannel
+{
+    /**
+     * Sends the first tier of a shared object, or the news that a job is done.
+     */
+    interface Sender 
+    { 
+        void send( Shared<?> shared ) throws RemoteException; 
+        
+        default void jobDone( int jobId ) throws RemoteException {}
+    }
+    
+    /**
+     * Marks the pending update of a job that is done: it is never sent.
+     */
+    static final private class Done extends Shared<Done>
+    {
+        static final private long serialVersionUID = 1L;
+        
+        @Override
+        protected boolean isImprovedBy( Done that ) { return false; }
+    }
+    
+    static final private Shared<?> DONE = new Done();
+    
+    final private Map<Long, Shared<?>> pending = new ConcurrentHashMap<>(); // by epoch: the job id
+    final private AtomicBoolean draining = new AtomicBoolean(); // true while a drain is submitted or running
+    final private String name;
+    final private Sender sender;
+    final private Executor executor;
+          private volatile long offerTime; // of the first offer of the pending updates
+          private volatile boolean closed;
+    final private AtomicLong numOffers = new AtomicLong();
+    final private AtomicLong numSends = new AtomicLong();
+    final private AtomicLong numTaken = new AtomicLong();
+    final private AtomicLong sumLatency = new AtomicLong();
+    final private AtomicLong maxLatency = new AtomicLong();
+    
+    /**
+     * @param name the name of the channel.
+     * @param sender sends the first tier of the newest shared object of a job.
+     * @param executor runs the channel's sends.
+     */
+    SharedChannel( String name, Sender sender, Executor executor )
+    {
+        this.name = name;
+        this.sender = sender;
+        this.executor = executor;
+    }
+    
+    /**
+     * @param shared a newer shared object of the job whose id is its epoch.
+     */
+    void offer( Shared<?> shared )
+    {
+        if ( closed )
+        {
+            return;
+        }
+        numOffers.getAndIncrement();
+        if ( pending.isEmpty() )
+        {
+            offerTime = System.nanoTime();
+        }
+        pending.compute( shared.epoch(), ( epoch, current ) -> current == DONE ? DONE : shared );
+        drainLater();
+    }
+    
+    /**
+     * Discard the pending update of a job that is done, and send the news that it is done.
+     * @param jobId the id of the job.
+     */
+    void jobDone( int jobId )
+    {
+        if ( closed )
+        {
+            return;
+        }
+        pending.put( (long) jobId, DONE );
+        drainLater();
+    }
+    
+    /**
+     * Discard the pending updates; send no more.
+     */
+    void close()
+    {
+        closed = true;
+        pending.clear();
+    }
+    
+    /**
+     * Take a pending update, if any, so that it is not sent by this channel.
+     * @return the first tier of a pending shared object, or null if no update is pending.
+     */
+    Shared<?> take()
+    {
+        for ( Map.Entry<Long, Shared<?>> entry : pending.entrySet() )
+        {
+            final Shared<?> shared = entry.getValue();
+            if ( shared != DONE && pending.remove( entry.getKey(), shared ) )
+            {
+                numTaken.getAndIncrement();
+                return shared.bound();
+            }
+        }
+        return null;
+    }
+    
+    private void drainLater()
+    {
+        if ( draining.compareAndSet( false, true ) )
+        {
+            executor.execute( this::drain );
+        }
+    }
+    
+    /**
+     * Send the pending updates until none is pending.
+     * Its last check, after clearing draining, catches an offer that found draining still set.
+     */
+    private void drain()
+    {
+        for ( ;; )
+        {
+            if ( pending.isEmpty() || closed )
+            {
+                draining.set( false );
+                if ( pending.isEmpty() || closed || ! draining.compareAndSet( false, true ) )
+                {
+                    return;
+                }
+                continue;
+            }
+            final long startTime = offerTime;
+            for ( Long epoch : pending.keySet() )
+            {
+                final Shared<?> shared = pending.remove( epoch );
+                if ( shared != null )
+                {
+                    send( epoch, shared, startTime );
+                }
+            }
+        }
+    }
+    
+    private void send( long epoch, Shared<?> shared, long startTime )
+    {
+        try
+        {
+            if ( shared == DONE )
+            {
+                sender.jobDone( (int) epoch );
+                return;
+            }
+            sender.send( shared.bound() );
+            final long latency = System.nanoTime() - startTime;
+            numSends.getAndIncrement();
+            sumLatency.addAndGet( latency );
+            maxLatency.accumulateAndGet( latency, Math::max );
+        }
+        catch ( RemoteException ex )
+        {
+            Logger.getLogger( SharedChannel.class.getName() )
+                  .log( Level.WARNING, name, ex );
+        }
+    }
+    
+    void reset()
+    {
+        numOffers.set( 0 );
+        numSends.set( 0 );
+        numTaken.set( 0 );
+        sumLatency.set( 0 );
+        maxLatency.set( 0 );
+    }
+    
+    long numOffers() { return numOffers.get(); }
+    
+    long numSends() { return numSends.get(); }
+    
+    long numTaken() { return numTaken.get(); }
+    
+    long sumLatency() { return sumLatency.get(); }
+    
+    long maxLatency() { return maxLatency.get(); }
+    
+    @Override
+    public String toString()
+    {
+        final long sends = numSends.get();
+        return String.format( "%s: %d updates offered, %d sent, %d piggybacked, latency mean %.3fms max %.3fms",
+                name, numOffers.get(), sends, numTaken.get(),
+                sends == 0 ? 0 : sumLatency.get() / 1e6 / sends, maxLatency.get() / 1e6 );
+    }
+}
@@ -23,6 +23,8 @@
  */
 package system;
 
+import api.JobContext;
+import api.JobMetrics;
 import api.ReturnValue;
 import api.Shared;
 import api.Space;
@@ -30,19 +32,34 @@ import api.TaskCompose;
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.server.UnicastRemoteObject;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.IntStream;
+import static system.Configuration.ADAPTIVE_WORKERS;
+import static system.Configuration.BEST_FIRST_DISPATCH;
+import static system.Configuration.NIO_PORT;
+import static system.Configuration.NIO_TRANSPORT;
 import static system.Configuration.SPACE_CALLABLE;
+import static system.Configuration.WIRE_CODECS;
 
 /**
  * SpaceImpl implements the space for coordinating sending/receiving Task and Result objects.
@@ -51,17 +68,56 @@ import static system.Configuration.SPACE_CALLABLE;
 public final class SpaceImpl extends UnicastRemoteObject implements Space
 {
     static final public int PROXIES_PER_PROCESSOR = 2;
+    static final public int MAX_BATCHES_PER_PROCESSOR = 4 * PROXIES_PER_PROCESSOR; // the largest adaptive concurrency limit
+    static final public int MAX_BATCH_SIZE = 64;
+    static final public double BATCH_EFFICIENCY = 0.9; // target fraction of a batch's round trip time spent computing
     static final public int FINAL_RETURN_VALUE = -1;
+    static final public int NO_JOB = 0; // the job id of a task that was executed, rather than submitted
+    static final public int COMPOSE_THREADS = Runtime.getRuntime().availableProcessors();
+    static final public int COMPOSE_QUEUE_CAPACITY = 1024;
+    static final public long MAX_SPACE_COMPOSE_TIME = 10000000; // nanoseconds: costlier compose tasks are sent to computers
+    static final public int MAX_DONE_JOBS = 1024; // done jobs whose results are not yet taken: the oldest is forgotten
     static final private AtomicInteger computerIds = new AtomicInteger();
     
     final private AtomicInteger taskIds = new AtomicInteger();
-    final private BlockingDeque<Task>     readyTasks = new LinkedBlockingDeque<>();
-    final private BlockingQueue<ReturnValue> resultQ = new LinkedBlockingQueue<>();
-    final private Map<Computer, ComputerProxy> computerProxies = Collections.synchronizedMap( new HashMap<>() );
-    final private Map<Integer, TaskCompose>   waitingTaskMap   = Collections.synchronizedMap( new HashMap<>() );
+    final private AtomicInteger jobIds = new AtomicInteger();
+    final private Semaphore             numReadyTasks = new Semaphore( 0 ); // 1 permit per task in some job's ReadyTasks
+    final private BlockingQueue<ReturnValue<?>> resultQ = new LinkedBlockingQueue<>(); // results of executed tasks
+    final private Map<Integer, Job> jobs = new ConcurrentHashMap<>(); // submitted jobs that are not done
+    final private Map<Integer, Job> doneSharedJobs = new ConcurrentHashMap<>(); // done jobs with shared objects, some of whose tasks are being executed
+    final private Map<Integer, Job> doneJobs = new LinkedHashMap<Integer, Job>() // whose results are not yet taken; guarded by itself
+    {
+        @Override
+        protected boolean removeEldestEntry( Map.Entry<Integer, Job> eldest ) { return size() > MAX_DONE_JOBS; }
+    };
+    final private ExecutorService downSharedSender = Executors.newSingleThreadExecutor( runnable -> 
+    {   // sends the shared object updates of every ComputerProxy's downSharedChannel.
+        final Thread thread = new Thread( runnable, "Space down shared sender" );
+        thread.setDaemon( true );
+        return thread;
+    } );
+    final private Job unsubmitted = new Job( NO_JOB, Space.DEFAULT_PRIORITY, null ); // executed tasks
+    final private List<Job> scheduledJobs = new ArrayList<>(); // started jobs that are not done; guarded by itself
+          private int scheduledJobIndex; // the job whose turn it is; guarded by scheduledJobs
+          private volatile Job turn = unsubmitted; // scheduledJobs.get( scheduledJobIndex ); written holding scheduledJobs
+    final private Map<Computer, ComputerProxy> computerProxies = new ConcurrentHashMap<>();
+    final private Map<Integer, TaskCompose<?>> waitingTaskMap   = new ConcurrentHashMap<>();
+    final private Map<Long, JobContext>        contexts         = new ConcurrentHashMap<>(); // of the started jobs that are not done
+    final private Map<Long, Integer>           numContextJobs   = new ConcurrentHashMap<>(); // the number of those jobs per context
     final private AtomicInteger numTasks = new AtomicInteger();
     final private ComputerImpl computerInternal;
-          private Shared shared; // mutable but thread-safe: its state changes are synchronized on itself.
+    final private ThreadPoolExecutor composeExecutor 
+            = new ThreadPoolExecutor( COMPOSE_THREADS, COMPOSE_THREADS, 0L, TimeUnit.MILLISECONDS, 
+                                      new LinkedBlockingQueue<>( COMPOSE_QUEUE_CAPACITY ), 
+                                      new ThreadPoolExecutor.CallerRunsPolicy() );
+    final private Map<Class<?>, Long> composeRunTimes = new ConcurrentHashMap<>(); // moving average, by compose class
+    final private AtomicInteger numPrunedTasks = new AtomicInteger(); // ready tasks that were not useful
+    final private AtomicInteger numSpaceComposes = new AtomicInteger();
+    final private AtomicInteger numComputerComposes = new AtomicInteger();
+    final private AtomicInteger maxComposeQueueSize = new AtomicInteger();
+    final private AtomicLong spaceComposeTime = new AtomicLong();
+    final private BlockingQueue<ComputerProxy> batchSlots = new LinkedBlockingQueue<>(); // 1 element per batch that its computer may be sent
+    final private ExecutorService batchExecutor = Executors.newCachedThreadPool( BatchThread::new );
     
     public SpaceImpl() throws RemoteException 
     {
@@ -71,30 +127,211 @@ public final class SpaceImpl extends UnicastRemoteObject implements Space
         {
             computerInternal = new ComputerImpl( this );
         }
+        if ( ADAPTIVE_WORKERS )
+        {
+            new Dispatcher().start();
+        }
+        scheduledJobs.add( unsubmitted );
     }
     
     public Computer computer() { return computerInternal; }
     
-    public void addReadyTask( Task task ) { readyTasks.addFirst( task ); }
+    /**
+     * Put a ready task into its job's ReadyTasks.
+     * A task produced by a WorkerProxy or BatchThread, such as a child of a decomposition, 
+     * goes to the deque of the computer whose batch produced it; 
+     * all other tasks go to the job's deque.
+     * @param task the ready task.
+     */
+    public void addReadyTask( Task task ) 
+    { 
+        final Thread thread = Thread.currentThread();
+        int computerId = ReadyTasks.NO_COMPUTER;
+        if ( thread instanceof ComputerProxy.WorkerProxy )
+        {
+            computerId = ( (ComputerProxy.WorkerProxy) thread ).computerId();
+        }
+        else if ( thread instanceof BatchThread && ( (BatchThread) thread ).computerProxy != null )
+        {
+            computerId = ( (BatchThread) thread ).computerProxy.computerId;
+        }
+        final Job job = job( task );
+        job.numTasks.getAndIncrement();
+        task.readyTime( System.nanoTime() );
+        job.readyTasks.add( task, computerId );
+        numReadyTasks.release();
+    }
+    
+    /**
+     * Dispatch a compose task whose args are all set.
+     * If it is not locally composable, or if it is Space callable and its compose class's 
+     * measured run time is at most MAX_SPACE_COMPOSE_TIME, it is executed by the Space's compose executor,
+     * concurrently with result processing; otherwise, it is sent to a computer.
+     * When the executor's queue is full, the calling thread executes it.
+     * @param compose the ready compose task.
+     */
+    public void addReadyCompose( TaskCompose<?> compose )
+    {
+        if ( ! compose.isLocallyComposable() 
+          || SPACE_CALLABLE && compose.isSpaceCallable() 
+          && composeRunTimes.getOrDefault( compose.getClass(), 0L ) <= MAX_SPACE_COMPOSE_TIME )
+        {
+            job( compose ).numTasks.getAndIncrement();
+            composeExecutor.execute( () -> executeCompose( compose ) );
+            maxComposeQueueSize.accumulateAndGet( composeExecutor.getQueue().size(), Math::max );
+        }
+        else
+        {
+            numComputerComposes.getAndIncrement();
+            addReadyTask( compose );
+        }
+    }
+    
+    private void executeCompose( TaskCompose<?> compose )
+    {
+        try 
+        { 
+            final Return result = computerInternal.execute( compose );
+            numSpaceComposes.getAndIncrement();
+            spaceComposeTime.addAndGet( result.taskRunTime() );
+            processResult( compose, result );
+        }
+        catch ( RemoteException ex ) 
+        {
+            Logger.getLogger( getClass().getName() )
+                  .log( Level.SEVERE, null, ex );
+        }
+    }
+    
+    /**
+     * Take a ready task for a WorkerProxy of the given ComputerProxy, 
+     * from the ReadyTasks of the job whose turn it is.
+     * A permit of numReadyTasks is held for each task in some ReadyTasks, so once
+     * a permit is acquired, the search terminates.
+     * @param thief the ComputerProxy whose WorkerProxy is taking a task.
+     * @return the ready task.
+     * @throws InterruptedException 
+     */
+    private Task takeReadyTask( ComputerProxy thief ) throws InterruptedException 
+    { 
+        for ( ;; )
+        {
+            numReadyTasks.acquire();
+            final Task task = pollReadyTask( thief );
+            if ( ! discarded( task ) && ! pruned( task ) )
+            {
+                return task;
+            }
+        }
+    }
+    
+    /**
+     * Take a batch of ready tasks for a WorkerProxy of the given ComputerProxy.
+     * Block until 1 task is ready; add to the batch only those other tasks 
+     * that are ready now.
+     * @param thief the ComputerProxy whose WorkerProxy is taking the tasks.
+     * @param maxNumTasks the maximum batch size.
+     * @return a nonempty List of ready tasks.
+     * @throws InterruptedException 
+     */
+    private List<Task> takeReadyTasks( ComputerProxy thief, int maxNumTasks ) throws InterruptedException 
+    { 
+        final List<Task> tasks = new ArrayList<>( maxNumTasks );
+        tasks.add( takeReadyTask( thief ) );
+        while ( tasks.size() < maxNumTasks && numReadyTasks.tryAcquire() )
+        {
+            final Task task = pollReadyTask( thief );
+            if ( ! discarded( task ) && ! pruned( task ) )
+            {
+                tasks.add( task );
+            }
+        }
+        return tasks;
+    }
+    
+    /**
+     * Remove a ready task whose numReadyTasks permit the caller already holds.
+     */
+    private Task pollReadyTask( ComputerProxy thief )
+    {
+        for ( ;; )
+        {
+            final Job job = nextJob();
+            final Task task = job.readyTasks.poll( thief.computerId );
+            if ( task != null )
+            {
+                job.sent( System.nanoTime() - task.readyTime() );
+                return task;
+            }
+            job.deficit.set( 0 ); // it has no ready task
+        }
+    }
+    
+    /**
+     * Choose the job whose ready task is taken next, by deficit round robin:
+     * on its turn, a job's deficit grows by its priority, and it is sent 1 task
+     * per unit of deficit, while it has ready tasks; a job without ready tasks 
+     * loses its deficit. So jobs with ready tasks are sent tasks in proportion
+     * to their priorities, and none starves.
+     * A take debits the job whose turn it is without locking; 
+     * scheduledJobs is locked only to pass the turn, when a job's quantum ends.
+     * The caller holds a numReadyTasks permit, so some job has a ready task.
+     * @return the job whose turn it is.
+     */
+    private Job nextJob()
+    {
+        for ( ;; )
+        {
+            final Job job = turn;
+            if ( job.readyTasks.size() == 0 )
+            {
+                job.deficit.set( 0 );
+            }
+            else if ( job.debit() )
+            {
+                return job;
+            }
+            passTurn( job );
+        }
+    }
+    
+    /**
+     * Pass the turn from a job to the next scheduled job, crediting its deficit with its priority.
+     * @param job the job whose turn it was: if it no longer is, another taker passed the turn.
+     */
+    private void passTurn( Job job )
+    {
+        synchronized ( scheduledJobs )
+        {
+            if ( turn != job )
+            {
+                return;
+            }
+            scheduledJobIndex = ( scheduledJobIndex + 1 ) % scheduledJobs.size();
+            final Job next = scheduledJobs.get( scheduledJobIndex );
+            next.deficit.addAndGet( next.priority );
+            turn = next;
+        }
+    }
     
-    private Task takeReadyTask() throws InterruptedException { return readyTasks.takeFirst(); }
+    /**
+     * @return the job of a task: the unsubmitted job, if it was executed, rather than submitted.
+     */
+    private Job job( Task task )
+    {
+        final Job job = jobs.get( task.jobId() );
+        return job == null || job.done.get() ? unsubmitted : job;
+    }
     
     /**
      * Compute a Task and return its Return.
-     * To ensure that the correct Return is returned, this must be the only
-     * computation that the Space is serving.
+     * Its Return is routed by its job id, so the Space may serve other jobs concurrently.
      * 
      * @param task
      * @return the Task's Return object.
      */
     @Override
-    public ReturnValue compute( Task task )
-    {
-        initTimeMeasures();
-        computerProxies.values().forEach( ComputerProxy::notifyWorkerProxies );
-        execute( task );
-        return take();
-    }
+    public ReturnValue<?> compute( Task task ) { return take( submit( task, null, null ) ); }
     
     /**
      *
@@ -103,15 +340,327 @@ public final class SpaceImpl extends UnicastRemoteObject implements Space
      * @return
      */
     @Override
-    public ReturnValue compute( Task task, Shared shared )
+    public ReturnValue<?> compute( Task task, Shared<?> shared ) { return compute( task, shared, null ); }
+    
+    /**
+     * Submit the job, and wait for its result.
+     * @param task
+     * @param shared
+     * @param context
+     * @return
+     */
+    @Override
+    public ReturnValue<?> compute( Task task, Shared<?> shared, JobContext context )
     {
-        initTimeMeasures();
-        initShared( shared );
-        execute( task );
-        ReturnValue result = take();
+        final ReturnValue<?> result = take( submit( task, shared, context ) );
         reportTimeMeasures( result );
         return result;
     }
+    
+    @Override
+    public JobContext context( long contextId ) { return contexts.get( contextId ); }
+    
+    @Override
+    public int submit( Task task, Shared<?> shared, JobContext context ) 
+    { 
+        return submit( task, shared, context, DEFAULT_PRIORITY ); 
+    }
+    
+    @Override
+    public int submit( Task task, Shared<?> shared, JobContext context, int priority )
+    {
+        if ( priority < 1 )
+        {
+            throw new IllegalArgumentException( "A job's priority must be positive: " + priority );
+        }
+        final int jobId = jobIds.incrementAndGet();
+        if ( shared != null )
+        {   // stamped now, so that its newer shared objects replace it.
+            shared.epoch( jobId );
+        }
+        final Job job = new Job( jobId, priority, shared );
+        job.numTasks.getAndIncrement(); // held until it has started, so it cannot be done before.
+        jobs.put( jobId, job );
+        start( jobId, task, context );
+        return jobId;
+    }
+    
+    private void start( int jobId, Task task, JobContext context )
+    {
+        if ( jobs.values().stream().filter( job -> ! job.result.isDone() ).count() == 1 )
+        {   // no other job is running.
+            initTimeMeasures();
+        }
+        task.jobId( jobId );
+        final Job job = jobs.get( jobId );
+        job.startTime = System.nanoTime();
+        synchronized ( scheduledJobs ) { scheduledJobs.add( job ); }
+        if ( context != null )
+        {
+            job.context = context;
+            numContextJobs.compute( context.id(), ( id, numJobs ) -> 
+            {   // atomic for its key, as is the removal when a job is done.
+                contexts.put( id, context );
+                return numJobs == null ? 1 : numJobs + 1;
+            } );
+            task.contextId( context.id() );
+        }
+        if ( job.latest != null )
+        {   // a push of this job's epoch may have replaced it already: computers keep the newer.
+            initShared( job.latest );
+        }
+        else
+        {
+            computerProxies.values().forEach( ComputerProxy::notifyWorkerProxies );
+        }
+        execute( task );
+        taskRemoved( task ); // the count held since it was submitted
+    }
+    
+    /**
+     * Wait for a submitted job's result, and forget the job.
+     * @param jobId
+     * @return the job's result.
+     * @throws java.util.concurrent.CancellationException if the job was cancelled.
+     * @throws IllegalArgumentException if no job whose result is not yet taken has this id:
+     * its result was taken, or it was forgotten, as are the oldest of more than MAX_DONE_JOBS done jobs.
+     */
+    @Override
+    public ReturnValue<?> take( int jobId )
+    {
+        final Job job = submittedJob( jobId );
+        if ( job == null )
+        {
+            throw new IllegalArgumentException( "No job " + jobId + " awaits its result being taken." );
+        }
+        try { return job.result.join(); }
+        finally 
+        { 
+            synchronized ( doneJobs ) 
+            { 
+                job.taken = true;
+                doneJobs.remove( jobId ); 
+            }
+        }
+    }
+    
+    /**
+     * @return the submitted job that is not done or, if done, whose result is not yet taken; otherwise null.
+     */
+    private Job submittedJob( int jobId )
+    {
+        final Job job = jobs.get( jobId );
+        if ( job != null )
+        {
+            return job;
+        }
+        synchronized ( doneJobs ) { return doneJobs.get( jobId ); } // jobDone puts a job here before it removes it from jobs.
+    }
+    
+    /**
+     * Cancel a job: its waiting compose tasks are removed; its ready tasks are discarded 
+     * when they are taken; the Returns of its tasks being executed are discarded. 
+     * @param jobId
+     * @return 
+     */
+    @Override
+    public boolean cancel( int jobId )
+    {
+        final Job job = jobs.get( jobId );
+        if ( job == null || ! job.result.cancel( false ) )
+        {
+            return false;
+        }
+        waitingTaskMap.values().removeIf( compose -> compose.jobId() == jobId );
+        if ( job.numTasks.get() == 0 )
+        {
+            jobDone( jobId, job );
+        }
+        return true;
+    }
+    
+    /**
+     * A task of a job is no longer ready or being executed: 
+     * if it was the last task of a cancelled job, the job is done;
+     * if it was the last task of a job that is done, the computers forget the job's shared object.
+     */
+    private void taskRemoved( Task task )
+    {
+        final Job job = jobs.getOrDefault( task.jobId(), doneSharedJobs.get( task.jobId() ) );
+        if ( job == null || job.numTasks.decrementAndGet() != 0 )
+        {
+            return;
+        }
+        if ( job.result.isCancelled() )
+        {
+            jobDone( task.jobId(), job );
+        }
+        if ( job.done.get() && doneSharedJobs.remove( task.jobId(), job ) )
+        {
+            forgetShared( task.jobId() );
+        }
+    }
+    
+    @Override
+    public JobMetrics metrics( int jobId )
+    {
+        final Job job = submittedJob( jobId );
+        return job == null ? null : job.metrics();
+    }
+    
+    /**
+     * Discard a task of a cancelled job, or of a job that is done, 
+     * such as one whose result an Improver completed: its context may be gone.
+     * @return true if and only if the task was discarded.
+     */
+    private boolean discarded( Task task )
+    {
+        if ( ! isCancelled( task.jobId() ) && ! isDone( task.jobId() ) )
+        {
+            return false;
+        }
+        taskRemoved( task );
+        return true;
+    }
+    
+    /**
+     * The pre-dispatch filter: if a task of a job that has a shared object
+     * is no longer useful, given the job's newest shared object, process its pruned Return.
+     * @return true if and only if the task was pruned.
+     */
+    private boolean pruned( Task task )
+    {
+        final Job job = jobs.get( task.jobId() );
+        final Shared<?> jobShared = job == null ? null : job.latest;
+        if ( jobShared == null )
+        {
+            return false;
+        }
+        final Return prunedReturn = task.prunedReturn( jobShared );
+        if ( prunedReturn == null )
+        {
+            return false;
+        }
+        numPrunedTasks.getAndIncrement();
+        processResult( task, prunedReturn );
+        return true;
+    }
+    
+    /**
+     * Prune the ready tasks of a job that are no longer useful, given its shared object.
+     * @param job the job.
+     * @param jobShared the job's newest shared object.
+     */
+    private void pruneReadyTasks( Job job, Shared<?> jobShared )
+    {
+        final Map<Task, Return> prunedReturns = new IdentityHashMap<>();
+        final List<Task> tasks = job.readyTasks.removeIf( task -> 
+        {
+            final Return prunedReturn = task.prunedReturn( jobShared );
+            if ( prunedReturn == null )
+            {
+                return false;
+            }
+            prunedReturns.put( task, prunedReturn );
+            return true;
+        }, numReadyTasks );
+        numPrunedTasks.addAndGet( tasks.size() );
+        tasks.forEach( task -> processResult( task, prunedReturns.get( task ) ) );
+    }
+    
+    public boolean isCancelled( int jobId )
+    {
+        final Job job = jobs.get( jobId );
+        return job != null && job.result.isCancelled();
+    }
+    
+    /**
+     * @param jobId
+     * @return true if and only if the job was submitted, and it is done or its result was taken.
+     */
+    public boolean isDone( int jobId )
+    {
+        if ( jobId == NO_JOB )
+        {
+            return false;
+        }
+        final Job job = jobs.get( jobId );
+        return job == null || job.done.get();
+    }
+    
+    /**
+     * A job is done or, if cancelled, none of its tasks remain: 
+     * it waits among the done jobs until its result is taken;
+     * if it has a shared object, the computers forget it when none of its tasks is being executed,
+     * such as those of a job whose result an Improver completed.
+     */
+    private void jobDone( int jobId, Job job )
+    {
+        if ( ! job.done.compareAndSet( false, true ) )
+        {
+            return;
+        }
+        if ( ! job.result.isCancelled() )
+        {   // its tasks that remain are discarded.
+            waitingTaskMap.values().removeIf( compose -> compose.jobId() == jobId );
+        }
+        synchronized ( doneJobs )
+        {
+            if ( ! job.taken )
+            {
+                doneJobs.put( jobId, job );
+            }
+        }
+        if ( job.latest != null )
+        {   // before it leaves jobs, so that taskRemoved finds it.
+            doneSharedJobs.put( jobId, job );
+            if ( job.numTasks.get() == 0 && doneSharedJobs.remove( jobId, job ) )
+            {
+                forgetShared( jobId );
+            }
+        }
+        jobs.remove( jobId );
+        if ( job.context != null )
+        {
+            numContextJobs.computeIfPresent( job.context.id(), ( id, numJobs ) -> 
+            {
+                if ( numJobs > 1 )
+                {
+                    return numJobs - 1;
+                }
+                contexts.remove( id );
+                return null;
+            } );
+        }
+        synchronized ( scheduledJobs )
+        {
+            final int index = scheduledJobs.indexOf( job );
+            if ( index >= 0 )
+            {
+                scheduledJobs.remove( index );
+                if ( scheduledJobIndex > index || scheduledJobIndex == scheduledJobs.size() )
+                {
+                    scheduledJobIndex = ( scheduledJobIndex - 1 + scheduledJobs.size() ) % scheduledJobs.size();
+                }
+                turn = scheduledJobs.get( scheduledJobIndex );
+            }
+        }
+        Logger.getLogger( getClass().getName() )
+              .log( Level.INFO, job.metrics().toString() );
+    }
+    
+    /**
+     * The computers forget the shared object of a job that is done.
+     * @param jobId the id of the job.
+     */
+    private void forgetShared( int jobId )
+    {
+        if ( SPACE_CALLABLE )
+        {
+            computerInternal.jobDone( jobId );
+        }
+        computerProxies.values().forEach( computerProxy -> computerProxy.downSharedChannel.jobDone( jobId ) );
+    }
     /**
      * Put a task into the Task queue.
      * @param task
@@ -135,7 +684,7 @@ public final class SpaceImpl extends UnicastRemoteObject implements Space
      * @return a Return object.
      */
     @Override
-    public ReturnValue take() 
+    public ReturnValue<?> take() 
     {
         try { return resultQ.take(); } 
         catch ( InterruptedException ignore ) 
@@ -157,8 +706,12 @@ public final class SpaceImpl extends UnicastRemoteObject implements Space
     @Override
     public void register( Computer computer, int numProcessors ) throws RemoteException
     {
-        final ComputerProxy computerProxy = new ComputerProxy( computer, PROXIES_PER_PROCESSOR* numProcessors );
+        final ComputerProxy computerProxy = new ComputerProxy( computer, numProcessors );
         computerProxies.put( computer, computerProxy );
+        jobs.values().stream()
+            .map( job -> job.latest )
+            .filter( jobShared -> jobShared != null )
+            .forEach( computerProxy::initShared ); // the running jobs' tasks may read them, before any update of them.
         computerProxy.startWorkerProxies();
         Logger.getLogger( getClass().getName() )
               .log( Level.INFO, "Registered computer {0}.", computerProxy.computerId );    
@@ -167,50 +720,141 @@ public final class SpaceImpl extends UnicastRemoteObject implements Space
     public static void main( String[] args ) throws Exception
     {
         System.setSecurityManager( new SecurityManager() );
+        final SpaceImpl space = new SpaceImpl();
         LocateRegistry.createRegistry( Space.PORT )
-                      .rebind(Space.SERVICE_NAME, new SpaceImpl() );
+                      .rebind(Space.SERVICE_NAME, space );
+        if ( NIO_TRANSPORT )
+        {   // clients still submit jobs via RMI.
+            NioComputer.listen( space, NIO_PORT );
+        }
     }
 
-    synchronized public void processResult( Task parentTask, Return result )
+    /**
+     * Process a task's Return. Lock-free: the waiting task map is concurrent
+     * and each TaskCompose counts down its unset args atomically, so Returns
+     * from all WorkerProxies are processed concurrently.
+     * @param parentTask the task whose Return is processed.
+     * @param result the task's Return.
+     */
+    public void processResult( Task parentTask, Return result )
     { 
+        if ( discarded( parentTask ) )
+        {
+            return;
+        }
         numTasks.getAndIncrement();
+        if ( parentTask instanceof TaskCompose )
+        {
+            composeRunTimes.merge( parentTask.getClass(), result.taskRunTime(), 
+                                   ( average, time ) -> average + ( time - average ) / 8 );
+        }
         result.process( parentTask, this );
+        taskRemoved( parentTask );
     }
     
     public int makeTaskId() { return taskIds.incrementAndGet(); }
     
-    public TaskCompose getCompose( int composeId ) { return waitingTaskMap.get( composeId ); }
+    public TaskCompose<?> getCompose( int composeId ) { return waitingTaskMap.get( composeId ); }
             
-    public void putCompose( TaskCompose compose )
+    public void putCompose( TaskCompose<?> compose )
     {
-        assert waitingTaskMap.get( compose.id() ) == null; 
-        waitingTaskMap.put( compose.id(), compose );
-        assert waitingTaskMap.get( compose.id() ) != null;
+        final TaskCompose<?> previous = waitingTaskMap.put( compose.id(), compose );
+        assert previous == null; 
     }
     
     public void removeWaitingTask( int composeId )
     { 
-        assert waitingTaskMap.get( composeId ) != null; 
-        waitingTaskMap.remove( composeId ); 
+        final TaskCompose<?> removed = waitingTaskMap.remove( composeId ); 
+        assert removed != null; 
     }
     
-    public void putResult( ReturnValue result ) { resultQ.add( result ); }
+    /**
+     * Complete a job with the Return of its root task, 
+     * which the newest of its shared objects that has a second tier completes.
+     * @param jobId the job's id, or NO_JOB if the root task was executed, rather than submitted.
+     * @param result the Return of the job's root task.
+     */
+    public void putResult( int jobId, ReturnValue<?> result ) 
+    { 
+        if ( jobId == NO_JOB )
+        {
+            resultQ.add( result ); 
+            return;
+        }
+        final Job job = jobs.get( jobId );
+        if ( job != null && job.result.complete( job.shared == null ? result : job.shared.complete( result ) ) )
+        {
+            jobDone( jobId, job );
+        }
+    }
     
+    /**
+     * If that is of a running job that has a shared object, and is newer than the job's shared object, 
+     * replace it, send that to the computers, and prune the job's ready tasks that are no longer useful.
+     * If that has a second tier, as from an Improver, it completes the job's result.
+     * @param that 
+     */
     @Override
-    public void upShared( Shared that )
+    public void upShared( Shared<?> that )
+    {
+        final Job job = jobs.get( (int) that.epoch() );
+        if ( job == null || job.latest == null || job.done.get() )
+        {   // of a job that is done.
+            return;
+        }
+        for ( Shared<?> current = job.latest; current.isOlderThan( that ); current = job.latest )
+        {
+            if ( job.replaceLatest( current, that ) )
+            {
+                System.out.println( this.getClass().getCanonicalName() + ": " + that );
+                if ( that.bound() != that )
+                {
+                    job.shared = that;
+                }
+                if ( SPACE_CALLABLE )
+                {
+                    computerInternal.downShared( that );
+                }
+                computerProxies.values().forEach( computerProxy -> computerProxy.downShared( that ) );
+                pruneReadyTasks( job, that );
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Accept the shared object that piggybacks on a batch's Returns, if any.
+     * @param returns 
+     */
+    private void upShared( List<Return> returns )
     {
-        if ( shared.shared( that ) )
+        if ( returns instanceof WireList && ( (WireList) returns ).shared() != null )
         {
-            System.out.println( this.getClass().getCanonicalName() + ": " + shared );
-            computerProxies.values().forEach( computerProxy -> computerProxy.downShared( that ) );
+            upShared( ( (WireList) returns ).shared() );
         }
     }
         
-    private void initTimeMeasures() { numTasks.getAndSet( 0 ); }
+    private void initTimeMeasures() 
+    { 
+        numTasks.getAndSet( 0 ); 
+        numPrunedTasks.getAndSet( 0 );
+        numSpaceComposes.getAndSet( 0 );
+        numComputerComposes.getAndSet( 0 );
+        spaceComposeTime.getAndSet( 0 );
+        maxComposeQueueSize.getAndSet( 0 );
+        computerProxies.values().forEach( computerProxy -> 
+        {
+            computerProxy.concurrencyLimit.reset();
+            computerProxy.downSharedChannel.reset();
+        } );
+    }
     
-    private void initShared( Shared shared )
+    private void initShared( Shared<?> shared )
     {
-        this.shared = shared;
+        if ( SPACE_CALLABLE )
+        {   // compose tasks that the Space calls may read the shared object.
+            computerInternal.downShared( shared );
+        }
         computerProxies.values()
                        .forEach( computerProxy -> computerProxy.initShared( shared )
         );
@@ -220,68 +864,321 @@ public final class SpaceImpl extends UnicastRemoteObject implements Space
     {
         Logger.getLogger( getClass().getCanonicalName() )
               .log( Level.INFO, 
-                    "\n\tTotal tasks: {0} \n\tT_1: {1}ms.\n\tT_inf: {2}ms.\n\tT_1 / T_inf: {3}", 
-                    new Object[]{ numTasks, result.t1() / 1000000, result.tInf() / 1000000, result.t1() / result.tInf() } );
+                    "\n\tTotal tasks: {0} \n\tT_1: {1}ms.\n\tT_inf: {2}ms.\n\tT_1 / T_inf: {3}\n\tPruned ready tasks: {4}", 
+                    new Object[]{ numTasks, result.t1() / 1000000, result.tInf() / 1000000, 
+                                  result.tInf() == 0 ? 1 : result.t1() / result.tInf(), numPrunedTasks } ); // tInf is 0 if its root task was pruned
+        Logger.getLogger( getClass().getCanonicalName() )
+              .log( Level.INFO, 
+                    "\n\tCompose tasks executed by Space: {0} in {1}ms.\n\tCompose tasks sent to computers: {2}\n\tLargest compose queue size: {3}", 
+                    new Object[]{ numSpaceComposes, spaceComposeTime.get() / 1000000, numComputerComposes, maxComposeQueueSize } );
+        long numOffers = 0, numSends = 0, numTaken = 0, sumLatency = 0, maxLatency = 0;
+        for ( ComputerProxy computerProxy : computerProxies.values() )
+        {
+            final SharedChannel channel = computerProxy.downSharedChannel;
+            numOffers  += channel.numOffers();
+            numSends   += channel.numSends();
+            numTaken   += channel.numTaken();
+            sumLatency += channel.sumLatency();
+            maxLatency  = Math.max( maxLatency, channel.maxLatency() );
+        }
+        Logger.getLogger( getClass().getCanonicalName() )
+              .log( Level.INFO, 
+                    "\n\tShared updates to computers: {0} offered, {1} sent, {2} piggybacked on batches\n\tSend latency: mean {3}ms, max {4}ms", 
+                    new Object[]{ numOffers, numSends, numTaken, 
+                                  String.format( "%.3f", numSends == 0 ? 0 : sumLatency / 1e6 / numSends ), String.format( "%.3f", maxLatency / 1e6 ) } );
     }
     
-    private class ComputerProxy extends Thread
+    /**
+     * A submitted job: its result, its ready tasks, its number of tasks that are 
+     * ready or being executed, and its scheduling metrics.
+     */
+    static final private class Job
+    {
+        static final private int WAIT_TIME_BUCKETS = 64; // bucket i counts wait times in [ 2^(i-1), 2^i ) nanoseconds
+        @SuppressWarnings( { "unchecked", "rawtypes" } ) // the field's type is Shared<?>; its class, Shared
+        static final private AtomicReferenceFieldUpdater<Job, Shared<?>> LATEST 
+                = (AtomicReferenceFieldUpdater) AtomicReferenceFieldUpdater.newUpdater( Job.class, Shared.class, "latest" );
+        
+        final private int id;
+        final private int priority;
+        final private CompletableFuture<ReturnValue<?>> result = new CompletableFuture<>();
+        final private ReadyTasks readyTasks = BEST_FIRST_DISPATCH ? new BestFirstReadyTasks() : new WorkStealingReadyTasks();
+        final private AtomicInteger numTasks = new AtomicInteger();
+        final private AtomicBoolean done = new AtomicBoolean();
+        final private AtomicInteger deficit = new AtomicInteger(); // tasks it may be sent before its turn passes
+        final private long[] waitTimeCounts = new long[ WAIT_TIME_BUCKETS ]; // guarded by this
+              private long numTasksSent;  // guarded by this
+              private long sumWaitTime;   // guarded by this
+              private long maxWaitTime;   // guarded by this
+              private volatile long startTime = System.nanoTime();
+              private volatile Shared<?> latest; // the newest, or null if it has none: immutable, replaced by a newer one
+              private volatile Shared<?> shared; // the newest with a second tier: it completes the job's result
+              private volatile JobContext context; // set when it starts, if it has one
+              private boolean taken;      // guarded by doneJobs
+        
+        private Job( int id, int priority, Shared<?> shared ) 
+        { 
+            this.id = id;
+            this.priority = priority;
+            this.latest = shared;
+            this.shared = shared;
+        }
+        
+        /**
+         * @return true if and only if that replaced current as its newest shared object.
+         */
+        private boolean replaceLatest( Shared<?> current, Shared<?> that ) { return LATEST.compareAndSet( this, current, that ); }
+        
+        /**
+         * @return true if and only if its deficit was positive, and is now 1 less.
+         */
+        private boolean debit()
+        {
+            for ( int deficit = this.deficit.get(); deficit > 0; deficit = this.deficit.get() )
+            {
+                if ( this.deficit.compareAndSet( deficit, deficit - 1 ) )
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        synchronized private void sent( long waitTime )
+        {
+            numTasksSent++;
+            sumWaitTime += waitTime;
+            maxWaitTime = Math.max( maxWaitTime, waitTime );
+            waitTimeCounts[ 64 - Long.numberOfLeadingZeros( Math.max( 0, waitTime ) ) ]++;
+        }
+        
+        synchronized private JobMetrics metrics()
+        {
+            long p99WaitTime = 0;
+            for ( long count = 0, bucket = 0; bucket < WAIT_TIME_BUCKETS && count < 0.99 * numTasksSent; bucket++ )
+            {
+                count += waitTimeCounts[ (int) bucket ];
+                p99WaitTime = 1L << bucket;
+            }
+            return new JobMetrics( id, priority, readyTasks.size(), numTasksSent, System.nanoTime() - startTime, 
+                                   numTasksSent == 0 ? 0 : sumWaitTime / numTasksSent, Math.min( p99WaitTime, maxWaitTime ), maxWaitTime );
+        }
+    }
+    
+    /**
+     * When workers are adaptive, the Dispatcher takes a batch slot of some computer,
+     * then a batch of ready tasks for it, which a BatchThread sends to the computer.
+     * Threads are thus blocked only by batches in flight, 
+     * whose number per computer is limited by its ConcurrencyLimit.
+     */
+    private class Dispatcher extends Thread
+    {
+        @Override
+        public void run()
+        {
+            while ( true )
+            {
+                try 
+                {
+                    final ComputerProxy computerProxy = batchSlots.take();
+                    if ( computerProxy.unregistered )
+                    {
+                        continue;
+                    }
+                    final List<Task> tasks = takeReadyTasks( computerProxy, computerProxy.batchSize );
+                    batchExecutor.execute( () -> computerProxy.executeBatch( tasks ) );
+                }
+                catch ( InterruptedException ex ) 
+                { 
+                    Logger.getLogger( getClass().getName() )
+                          .log( Level.INFO, null, ex ); 
+                }
+            }
+        }
+    }
+    
+    /**
+     * A pool thread that sends batches: while it sends a batch, 
+     * the tasks it makes ready go to the deque of the batch's ComputerProxy.
+     */
+    static private class BatchThread extends Thread
+    {
+        private ComputerProxy computerProxy;
+        
+        private BatchThread( Runnable runnable ) { super( runnable ); }
+    }
+    
+    private class ComputerProxy
     {
         final private Computer computer;
         final private int computerId = computerIds.getAndIncrement();
         final private Map<Integer, WorkerProxy> workerMap = new HashMap<>();
-        final private BlockingQueue<Boolean> downSharedQ = new LinkedBlockingQueue<>();
+        final private SharedChannel downSharedChannel;
+        final private ConcurrencyLimit concurrencyLimit;
+              private int numBatchSlots; // in batchSlots or in flight
+              private volatile boolean unregistered;
+              private volatile int batchSize = 1;
+              private double batchOverheadTime; // moving average of a batch's round trip time not spent computing
+              private double taskRunTime;       // moving average of a task's run time
 
-        ComputerProxy( Computer computer, int numWorkerProxies )
+        ComputerProxy( Computer computer, int numProcessors )
         { 
             this.computer = computer;
-            IntStream.range( 0, numWorkerProxies )
-                     .forEach( id ->  workerMap.put( id, new WorkerProxy( id ) ) );
+            downSharedChannel = new SharedChannel( "Space down shared " + computerId, new SharedChannel.Sender()
+            {
+                @Override
+                public void send( Shared<?> shared ) throws RemoteException { computer.downShared( shared ); }
+                
+                @Override
+                public void jobDone( int jobId ) throws RemoteException { computer.jobDone( jobId ); }
+            }, downSharedSender );
+            concurrencyLimit = new ConcurrencyLimit( PROXIES_PER_PROCESSOR * numProcessors, 
+                                                     MAX_BATCHES_PER_PROCESSOR * numProcessors );
+            if ( ! ADAPTIVE_WORKERS )
+            {
+                IntStream.range( 0, PROXIES_PER_PROCESSOR * numProcessors )
+                         .forEach( id ->  workerMap.put( id, new WorkerProxy( id ) ) );
+            }
         }
         
         private void startWorkerProxies()
         {
+            if ( ADAPTIVE_WORKERS )
+            {
+                addBatchSlots( concurrencyLimit.limit() );
+                return;
+            }
             workerMap.values().forEach( WorkerProxy::start );
         }
         
-        private void unregister( Task task, Computer computer, int workerProxyId )
+        /**
+         * @param tasks a batch for the computer.
+         * @return the batch as it is sent: a pending update of the shared object piggybacks on a WireList.
+         */
+        private List<Task> batch( List<Task> tasks )
+        {
+            return WIRE_CODECS ? new WireList<>( tasks, downSharedChannel.take() ) : tasks;
+        }
+        
+        /**
+         * Send a batch to the computer, from a BatchThread, then process its Returns.
+         * @param tasks the batch.
+         */
+        private void executeBatch( List<Task> tasks )
+        {
+            final BatchThread thread = (BatchThread) Thread.currentThread();
+            thread.computerProxy = this;
+            try 
+            { 
+                final long startTime = System.nanoTime();
+                final List<Return> returns = computer.executeBatch( batch( tasks ), numReadyTasks.hasQueuedThreads() );
+                final long roundTripTime = System.nanoTime() - startTime;
+                upShared( returns );
+                batchTimes( returns, roundTripTime );
+                final int limit = concurrencyLimit.sample( roundTripTime, tasks.size() );
+                for ( int i = 0; i < tasks.size(); i++ )
+                {
+                    processResult( tasks.get( i ), returns.get( i ) );
+                }
+                batchSlots( limit );
+            }
+            catch ( RemoteException ex )
+            {
+                requeue( tasks );
+                unregister();
+                Logger.getLogger( SpaceImpl.class.getName() )
+                      .log( Level.WARNING, "Computer " + computerId + ": batch failed.", ex );
+            } 
+            finally { thread.computerProxy = null; }
+        }
+        
+        /**
+         * Return a completed batch's slot, adding or dropping slots to meet the limit.
+         * @param limit the number of batches the computer may have in flight.
+         */
+        synchronized private void batchSlots( int limit )
+        {
+            if ( numBatchSlots > limit )
+            {
+                numBatchSlots--;
+                return;
+            }
+            batchSlots.add( this );
+            addBatchSlots( limit );
+        }
+        
+        synchronized private void addBatchSlots( int limit )
+        {
+            for ( ; numBatchSlots < limit; numBatchSlots++ )
+            {
+                batchSlots.add( this );
+            }
+        }
+        
+        /**
+         * Tune the batch size so that the fraction of a batch's round trip time
+         * spent computing is about BATCH_EFFICIENCY: 
+         * batchSize * taskRunTime / ( batchSize * taskRunTime + batchOverheadTime ) = BATCH_EFFICIENCY.
+         * @param returns the Returns of the batch.
+         * @param roundTripTime the elapsed time of the batch's executeBatch call.
+         */
+        synchronized private void batchTimes( List<Return> returns, long roundTripTime )
         {
-            addReadyTask( task );
+            long sumTaskRunTime = 0;
+            for ( Return result : returns )
+            {
+                sumTaskRunTime += result.taskRunTime();
+            }
+            final long overheadTime = Math.max( 0, roundTripTime - sumTaskRunTime );
+            batchOverheadTime += ( overheadTime - batchOverheadTime ) / 8;
+            taskRunTime += ( (double) sumTaskRunTime / returns.size() - taskRunTime ) / 8;
+            final double size = BATCH_EFFICIENCY / ( 1 - BATCH_EFFICIENCY ) * batchOverheadTime / Math.max( 1.0, taskRunTime );
+            batchSize = (int) Math.max( 1, Math.min( MAX_BATCH_SIZE, Math.ceil( size ) ) );
+        }
+        
+        private void unregister( List<Task> tasks, Computer computer, int workerProxyId )
+        {
+            requeue( tasks );
             workerMap.remove( workerProxyId );
             Logger.getLogger( getClass().getName() )
                   .log( Level.WARNING, "Computer {0}: Worker failed.", workerProxyId );
             if ( workerMap.isEmpty() )
             {
-                computerProxies.remove( computer );
-                Logger.getLogger( getClass().getName() )
-                      .log( Level.WARNING, "Computer {0} failed.", computerId );
+                unregister();
             }
         }
         
-        @Override
-        public void run()
+        private void requeue( List<Task> tasks )
         {
-            while ( true )
+            tasks.forEach( task -> job( task ).readyTasks.add( task, ReadyTasks.NO_COMPUTER ) );
+            numReadyTasks.release( tasks.size() );
+        }
+        
+        synchronized private void unregister()
+        {
+            if ( unregistered )
             {
-                try { downSharedQ.take(); } 
-                catch ( InterruptedException ex ) 
-                {
-                    Logger.getLogger( ComputerProxy.class.getName() )
-                          .log( Level.SEVERE, null, ex );
-                }
-                try { computer.downShared( shared.duplicate() ); } 
-                catch ( RemoteException ex ) 
-                {
-                    Logger.getLogger( ComputerProxy.class.getName() )
-                          .log( Level.SEVERE, null, ex );
-                }
+                return;
+            }
+            unregistered = true;
+            computerProxies.remove( computer );
+            downSharedChannel.close();
+            synchronized ( scheduledJobs )
+            {
+                scheduledJobs.forEach( job -> job.readyTasks.unregister( computerId ) );
             }
+            Logger.getLogger( getClass().getName() )
+                  .log( Level.WARNING, "Computer {0} failed.", computerId );
         }
         
-        public void downShared( Shared shared ) { downSharedQ.add( Boolean.TRUE ); }
+        /**
+         * @param shared the Space's newer shared object.
+         */
+        public void downShared( Shared<?> shared ) { downSharedChannel.offer( shared ); }
         
-        public void initShared( Shared shared )
+        public void initShared( Shared<?> shared )
         {            
-            try { computer.downShared( shared.duplicate() ); } 
+            try { computer.downShared( shared.bound() ); } 
             catch ( RemoteException ex ) 
             {
                 Logger.getLogger( SpaceImpl.class.getName() )
@@ -303,6 +1200,8 @@ public final class SpaceImpl extends UnicastRemoteObject implements Space
             
             private WorkerProxy( int id ) { this.id = id; }
             
+            private int computerId() { return computerId; }
+            
             @Override
             public void run()
             {
@@ -314,15 +1213,22 @@ public final class SpaceImpl extends UnicastRemoteObject implements Space
                 }
                 while ( true )
                 {
-                    Task task = null;
+                    List<Task> tasks = null;
                     try 
                     { 
-                        task = takeReadyTask();
-                        processResult( task, computer.execute( task ) );
+                        tasks = takeReadyTasks( ComputerProxy.this, batchSize );
+                        final long startTime = System.nanoTime();
+                        final List<Return> returns = computer.executeBatch( batch( tasks ), numReadyTasks.hasQueuedThreads() );
+                        batchTimes( returns, System.nanoTime() - startTime );
+                        upShared( returns );
+                        for ( int i = 0; i < tasks.size(); i++ )
+                        {
+                            processResult( tasks.get( i ), returns.get( i ) );
+                        }
                     }
                     catch ( RemoteException ignore )
                     {
-                        unregister( task, computer, id );
+                        unregister( tasks, computer, id );
                         ignore.printStackTrace();
                         return;
                     } 
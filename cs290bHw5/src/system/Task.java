@@ -22,9 +22,11 @@
  * THE SOFTWARE.
  */
 package system;
+import api.JobContext;
 import api.Shared;
 import api.Space;
 import api.TaskCompose;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.concurrent.Callable;
 
@@ -37,7 +39,10 @@ abstract public class Task implements Serializable, Callable<Return>
     private int id;
     private int composeId;
     private int composeArgNum;
-    private ComputerImpl computerImpl;
+    private long contextId;
+    private int jobId;
+    private transient ComputerImpl computerImpl; // the computer executing this task
+    private transient long readyTime; // when the Space made it ready
     protected Space space;
     
     @Override
@@ -52,11 +57,69 @@ abstract public class Task implements Serializable, Callable<Return>
     public int  composeId() { return composeId; }
     public void composeId( int composeId ) { this.composeId = composeId; }
     
+    public long contextId() { return contextId; }
+    public void contextId( long contextId ) { this.contextId = contextId; }
+    
+    public int  jobId() { return jobId; }
+    public void jobId( int jobId ) { this.jobId = jobId; }
+    
+    public ComputerImpl computer() { return computerImpl; }
     public void computer( ComputerImpl computerImpl ) { this.computerImpl = computerImpl; }
     
-    public Shared shared() { return computerImpl.shared(); }
+    long readyTime() { return readyTime; }
+    void readyTime( long readyTime ) { this.readyTime = readyTime; }
+    
+    /**
+     * @return the context of this task's job, fetched from the Space if the computer has not cached it.
+     */
+    public JobContext context() { return computerImpl.context( contextId ); }
+    
+    public Shared<?> shared() { return computerImpl.shared( jobId ); }
+    
+    public void shared( Shared<?> shared ) { computerImpl.upShared( jobId, shared ); }
     
-    public void shared( Shared shared ) { computerImpl.upShared( shared ); }
+    /**
+     * Write the Task fields: WireOutput writes them after the subclass's codec writes its fields.
+     */
+    void write( WireOutput out ) throws IOException
+    {
+        out.writeVarInt( id );
+        out.writeVarInt( composeId );
+        out.writeVarInt( composeArgNum );
+        out.writeVarLong( contextId );
+        out.writeVarInt( jobId );
+    }
+    
+    void read( WireInput in ) throws IOException
+    {
+        id = in.readVarInt();
+        composeId = in.readVarInt();
+        composeArgNum = in.readVarInt();
+        contextId = in.readVarLong();
+        jobId = in.readVarInt();
+    }
     
     public boolean isSpaceCallable() { return this instanceof TaskCompose; }
+    
+    /**
+     * The Space's pre-dispatch filter: a ready task that is no longer useful, 
+     * given its job's current shared object, is not sent to a computer; 
+     * the Space processes the Return that this method makes for it instead.
+     * @param shared the job's shared object: not null.
+     * @return the Return that stands in for this task's, so that its compose task still gets its arg,
+     * or null if this task is useful: null, unless overridden.
+     */
+    public Return prunedReturn( Shared<?> shared ) { return null; }
+    
+    /**
+     * When Configuration.BEST_FIRST_DISPATCH, the Space dispatches a job's ready tasks 
+     * in increasing order of priority, breaking ties in decreasing order of depth.
+     * @return this task's priority: 0, unless overridden.
+     */
+    public double priority() { return 0.0; }
+    
+    /**
+     * @return this task's depth in its job's task tree: 0, unless overridden.
+     */
+    public int depth() { return 0; }
 }
@@ -0,0 +1,77 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Peter Cappello.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package system;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The registry of codecs. A class registers its codec in its static 
+ * initializer, which each JVM runs before it writes or reads an instance.
+ * @author Peter Cappello
+ */
+final public class Wire 
+{
+    static final private Map<Class<?>, Codec<?>> CODECS = new ConcurrentHashMap<>();
+    
+    static
+    {
+        register( Integer.class, new Codec<Integer>()
+        {
+            @Override public void write( WireOutput out, Integer value ) throws IOException { out.writeVarInt( value ); }
+            @Override public Integer read( WireInput in ) throws IOException { return in.readVarInt(); }
+        } );
+        register( Long.class, new Codec<Long>()
+        {
+            @Override public void write( WireOutput out, Long value ) throws IOException { out.writeVarLong( value ); }
+            @Override public Long read( WireInput in ) throws IOException { return in.readVarLong(); }
+        } );
+        register( Double.class, new Codec<Double>()
+        {
+            @Override public void write( WireOutput out, Double value ) throws IOException { out.writeDouble( value ); }
+            @Override public Double read( WireInput in ) throws IOException { return in.readDouble(); }
+        } );
+    }
+    
+    private Wire() {}
+    
+    static public <T> void register( final Class<T> type, final Codec<T> codec ) { CODECS.put( type, codec ); }
+    
+    /**
+     * @param type
+     * @return the codec of type, or null if type has none.
+     */
+    static Codec<?> codec( final Class<?> type ) { return CODECS.get( type ); }
+    
+    /**
+     * Run the static initializer of a class read from a stream, which registers its codec.
+     * @param type
+     * @throws ClassNotFoundException 
+     */
+    static void initialize( final Class<?> type ) throws ClassNotFoundException
+    {
+        Class.forName( type.getName(), true, type.getClassLoader() );
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Peter Cappello.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package system;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads objects written by a WireOutput.
+ * @author Peter Cappello
+ */
+final public class WireInput 
+{
+    final private ObjectInput in;
+    final private List<Class<?>> classes = new ArrayList<>(); // indexed by class id - FIRST_CLASS_ID
+    
+    public WireInput( final ObjectInput in ) { this.in = in; }
+    
+    public int readVarInt() throws IOException 
+    { 
+        final int value = (int) readUnsignedVarLong();
+        return ( value >>> 1 ) ^ -( value & 1 );
+    }
+    
+    public long readVarLong() throws IOException 
+    { 
+        final long value = readUnsignedVarLong();
+        return ( value >>> 1 ) ^ -( value & 1 );
+    }
+    
+    public double readDouble() throws IOException { return in.readDouble(); }
+    
+    public boolean readBoolean() throws IOException { return in.readBoolean(); }
+    
+    /**
+     * @param ints the list to which the ints are added.
+     * @return ints.
+     * @throws IOException 
+     */
+    public List<Integer> readInts( final List<Integer> ints ) throws IOException
+    {
+        for ( int i = readVarInt(); i > 0; i-- )
+        {
+            ints.add( readVarInt() );
+        }
+        return ints;
+    }
+    
+    public Object readObject() throws IOException, ClassNotFoundException
+    {
+        final int tag = (int) readUnsignedVarLong();
+        final Class<?> type;
+        switch ( tag )
+        {
+            case WireOutput.NULL:       
+                return null;
+                
+            case WireOutput.SERIALIZED: 
+                return in.readObject();
+                
+            case WireOutput.NEW_CLASS:
+                type = (Class<?>) in.readObject();
+                Wire.initialize( type );
+                classes.add( type );
+                break;
+                
+            default:
+                type = classes.get( tag - WireOutput.FIRST_CLASS_ID );
+        }
+        final Codec<?> codec = Wire.codec( type );
+        if ( codec == null )
+        {
+            throw new StreamCorruptedException( type + " has no registered codec." );
+        }
+        final Object value = codec.read( this );
+        if ( value instanceof Task )
+        {
+            ( (Task) value ).read( this );
+        }
+        if ( value instanceof Return )
+        {
+            ( (Return) value ).read( this );
+        }
+        return value;
+    }
+    
+    private long readUnsignedVarLong() throws IOException
+    {
+        long value = 0;
+        for ( int shift = 0; ; shift += 7 )
+        {
+            final int b = in.readUnsignedByte();
+            value |= (long) ( b & 0x7F ) << shift;
+            if ( ( b & 0x80 ) == 0 )
+            {
+                return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Peter Cappello.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package system;
+
+import api.Shared;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A list of Tasks or Returns that crosses the wire encoded by the registered 
+ * codecs of its elements' classes, sharing one class id table.
+ * A batch may piggyback its sender's newest shared object.
+ * @author Peter Cappello
+ * @param <E> the element type.
+ */
+final public class WireList<E> extends AbstractList<E> implements Externalizable, RandomAccess
+{
+    static final private long serialVersionUID = 1L;
+    
+    private List<E> elements;
+    private Shared<?> shared;
+    
+    /**
+     * For Externalizable only.
+     */
+    public WireList() {}
+    
+    public WireList( final List<E> elements ) { this.elements = elements; }
+    
+    /**
+     * @param elements
+     * @param shared the shared object that piggybacks on this list, or null.
+     */
+    public WireList( final List<E> elements, final Shared<?> shared ) 
+    { 
+        this.elements = elements; 
+        this.shared = shared;
+    }
+    
+    /**
+     * @return the shared object that piggybacks on this list, or null.
+     */
+    public Shared<?> shared() { return shared; }
+    
+    @Override
+    public E get( final int index ) { return elements.get( index ); }
+
+    @Override
+    public int size() { return elements.size(); }
+
+    @Override
+    public void writeExternal( final ObjectOutput out ) throws IOException 
+    {
+        final WireOutput wireOutput = new WireOutput( out );
+        wireOutput.writeVarInt( elements.size() );
+        for ( E element : elements )
+        {
+            wireOutput.writeObject( element );
+        }
+        wireOutput.writeObject( shared );
+    }
+
+    @Override
+    @SuppressWarnings( "unchecked" ) // its elements were written as Es
+    public void readExternal( final ObjectInput in ) throws IOException, ClassNotFoundException 
+    {
+        final WireInput wireInput = new WireInput( in );
+        final int size = wireInput.readVarInt();
+        elements = new ArrayList<>( size );
+        for ( int i = 0; i < size; i++ )
+        {
+            elements.add( (E) wireInput.readObject() );
+        }
+        shared = (Shared<?>) wireInput.readObject();
+    }
+}
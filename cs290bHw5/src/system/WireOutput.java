@@ -0,0 +1,121 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Peter Cappello.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package system;
+
+import java.io.IOException;
+import java.io.ObjectOutput;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes objects whose classes have registered codecs compactly: 
+ * ints and longs as zigzag varints, and each class as a small id after its 
+ * first occurrence in the stream.
+ * Objects of other classes are written with Java serialization.
+ * @author Peter Cappello
+ */
+final public class WireOutput 
+{
+    // object tags; tags from FIRST_CLASS_ID on are class ids.
+    static final int NULL           = 0;
+    static final int SERIALIZED     = 1;
+    static final int NEW_CLASS      = 2;
+    static final int FIRST_CLASS_ID = 3;
+    
+    final private ObjectOutput out;
+    final private Map<Class<?>, Integer> classIds = new HashMap<>();
+    
+    public WireOutput( final ObjectOutput out ) { this.out = out; }
+    
+    public void writeVarInt( final int value ) throws IOException 
+    { 
+        writeUnsignedVarLong( ( ( value << 1 ) ^ ( value >> 31 ) ) & 0xFFFFFFFFL ); 
+    }
+    
+    public void writeVarLong( final long value ) throws IOException 
+    { 
+        writeUnsignedVarLong( ( value << 1 ) ^ ( value >> 63 ) ); 
+    }
+    
+    public void writeDouble( final double value ) throws IOException { out.writeDouble( value ); }
+    
+    public void writeBoolean( final boolean value ) throws IOException { out.writeBoolean( value ); }
+    
+    public void writeInts( final List<Integer> values ) throws IOException
+    {
+        writeVarInt( values.size() );
+        for ( int value : values )
+        {
+            writeVarInt( value );
+        }
+    }
+    
+    public void writeObject( final Object value ) throws IOException
+    {
+        if ( value == null )
+        {
+            writeUnsignedVarLong( NULL );
+            return;
+        }
+        final Class<?> type = value.getClass();
+        @SuppressWarnings( "unchecked" ) // the codec of value's class
+        final Codec<Object> codec = (Codec<Object>) Wire.codec( type );
+        if ( codec == null )
+        {
+            writeUnsignedVarLong( SERIALIZED );
+            out.writeObject( value );
+            return;
+        }
+        final Integer classId = classIds.get( type );
+        if ( classId == null )
+        {
+            classIds.put( type, FIRST_CLASS_ID + classIds.size() );
+            writeUnsignedVarLong( NEW_CLASS );
+            out.writeObject( type ); // annotated with its codebase, as Java serialization does
+        }
+        else
+        {
+            writeUnsignedVarLong( classId );
+        }
+        codec.write( this, value );
+        if ( value instanceof Task )
+        {
+            ( (Task) value ).write( this );
+        }
+        if ( value instanceof Return )
+        {
+            ( (Return) value ).write( this );
+        }
+    }
+    
+    private void writeUnsignedVarLong( long value ) throws IOException
+    {
+        for ( ; ( value & ~0x7FL ) != 0; value >>>= 7 )
+        {
+            out.writeByte( (int) ( value & 0x7F ) | 0x80 );
+        }
+        out.writeByte( (int) value );
+    }
+}
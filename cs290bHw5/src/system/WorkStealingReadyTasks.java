@@ -0,0 +1,143 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Peter Cappello.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package system;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * The ready tasks of a job, dispatched LIFO with work stealing.
+ * A task made ready by a computer's batch, such as a child of a decomposition, 
+ * goes to the head of that computer's deque; all other tasks go to the head of the job's deque.
+ * A computer takes a task from the head of its own deque, then from the head of the job's deque, 
+ * otherwise it steals one from the tail of another computer's deque.
+ * @author Peter Cappello
+ */
+class WorkStealingReadyTasks extends ReadyTasks
+{
+    final private Deque<Task> tasks = new ConcurrentLinkedDeque<>();
+    final private Map<Integer, Deque<Task>> computerTasks = new ConcurrentHashMap<>();
+    final private AtomicInteger size = new AtomicInteger();
+    
+    @Override
+    void add( Task task, int computerId )
+    {
+        size.getAndIncrement();
+        deque( computerId ).addFirst( task );
+    }
+    
+    private Deque<Task> deque( int computerId )
+    {
+        if ( computerId == NO_COMPUTER )
+        {
+            return tasks;
+        }
+        final Deque<Task> deque = computerTasks.get( computerId ); // computeIfAbsent may lock its bin
+        return deque != null ? deque : computerTasks.computeIfAbsent( computerId, id -> new ConcurrentLinkedDeque<>() );
+    }
+    
+    @Override
+    Task poll( int thiefId )
+    {
+        final Deque<Task> own = computerTasks.get( thiefId );
+        Task task = own == null ? null : own.pollFirst();
+        if ( task == null )
+        {
+            task = tasks.pollFirst();
+        }
+        if ( task == null )
+        {
+            for ( Deque<Task> victim : computerTasks.values() )
+            {
+                if ( ( task = victim.pollLast() ) != null )
+                {
+                    break;
+                }
+            }
+        }
+        if ( task != null )
+        {
+            size.getAndDecrement();
+        }
+        return task;
+    }
+    
+    /**
+     * Hand a computer's ready tasks to the job's deque.
+     */
+    @Override
+    void unregister( int computerId )
+    {
+        final Deque<Task> computerDeque = computerTasks.remove( computerId );
+        if ( computerDeque != null )
+        {
+            for ( Task task; ( task = computerDeque.pollLast() ) != null; )
+            {
+                tasks.addFirst( task );
+            }
+        }
+    }
+    
+    @Override
+    List<Task> removeIf( Predicate<Task> predicate, Semaphore permits )
+    {
+        final List<Task> removed = new ArrayList<>();
+        final List<Deque<Task>> queues = new ArrayList<>( computerTasks.values() );
+        queues.add( tasks );
+        for ( Deque<Task> queue : queues )
+        {
+            for ( Task task : queue )
+            {
+                if ( ! predicate.test( task ) )
+                {
+                    continue;
+                }
+                if ( ! permits.tryAcquire() )
+                {
+                    return removed;
+                }
+                if ( queue.remove( task ) )
+                {
+                    size.getAndDecrement();
+                    removed.add( task );
+                }
+                else
+                {   // a taker got it first.
+                    permits.release();
+                }
+            }
+        }
+        return removed;
+    }
+    
+    @Override
+    int size() { return size.get(); }
+}
@@ -0,0 +1,155 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 petercappello.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * The distances between the cities of a Euclidean graph, computed once
+ * instead of on each use.
+ * Graphs of at most MAX_DENSE_CITIES cities get a dense row-major matrix;
+ * larger graphs compute each distance when asked: their matrix does not fit
+ * in cache, and a memory access costs more than the square root it saves.
+ * Only the city coordinates are serialized: the receiver recomputes distances.
+ * @author Peter Cappello
+ */
+abstract public class DistanceMatrix implements Serializable
+{
+    static final private long serialVersionUID = 1L;
+    static final public int MAX_DENSE_CITIES = 2048;
+    
+    final protected double[][] cities;
+    
+    protected DistanceMatrix( final double[][] cities ) { this.cities = cities; }
+    
+    /**
+     * Make a distance matrix whose representation suits the size of the graph.
+     * @param cities the coordinates of each city.
+     * @return the distance matrix of the cities.
+     */
+    static public DistanceMatrix make( final double[][] cities )
+    {
+        return cities.length <= MAX_DENSE_CITIES ? new Dense( cities ) : new Computed( cities );
+    }
+    
+    /**
+     * @param city1
+     * @param city2
+     * @return the Euclidean distance between city1 and city2.
+     */
+    abstract public double distance( int city1, int city2 );
+    
+    public int size() { return cities.length; }
+    
+    /**
+     * @return the distances as a row-major array: distance( i, j ) is element i * size() + j.
+     * Callers must not modify it.
+     */
+    public double[] toArray()
+    {
+        final double[] distances = new double[ cities.length * cities.length ];
+        for ( int i = 0; i < cities.length; i++ )
+        {
+            for ( int j = 0; j < cities.length; j++ )
+            {
+                distances[ i * cities.length + j ] = distance( i, j );
+            }
+        }
+        return distances;
+    }
+    
+    public double[][] cities() { return cities; }
+    
+    /**
+     * @param tour a permutation of the cities that starts with city 0.
+     * @return the cost of the tour, including its edge back to city 0.
+     */
+    public double tourDistance( final List<Integer> tour )
+    {
+        double cost = distance( tour.get( tour.size() - 1 ), 0 );
+        for ( int city = 0; city < tour.size() - 1; city ++ )
+        {
+            cost += distance( tour.get( city ), tour.get( city + 1 ) );
+        }
+        return cost;
+    }
+    
+    final static private class Dense extends DistanceMatrix
+    {
+        static final private long serialVersionUID = 1L;
+        
+        private transient double[] distances;
+        
+        Dense( final double[][] cities ) 
+        { 
+            super( cities );
+            distances = distances( cities );
+        }
+        
+        @Override
+        public double distance( final int city1, final int city2 ) 
+        { 
+            return distances[ city1 * cities.length + city2 ]; 
+        }
+        
+        @Override
+        public double[] toArray() { return distances; }
+        
+        private void readObject( final ObjectInputStream inputStream ) throws IOException, ClassNotFoundException
+        {
+            inputStream.defaultReadObject();
+            distances = distances( cities );
+        }
+        
+        static private double[] distances( final double[][] cities )
+        {
+            final int n = cities.length;
+            final double[] distances = new double[ n * n ];
+            for ( int i = 0; i < n; i++ )
+            {
+                for ( int j = 0; j < n; j++ )
+                {
+                    distances[ i * n + j ] = EuclideanGraph.distance( cities[ i ], cities[ j ] );
+                }
+            }
+            return distances;
+        }
+    }
+    
+    final static private class Computed extends DistanceMatrix
+    {
+        static final private long serialVersionUID = 1L;
+        
+        Computed( final double[][] cities ) { super( cities ); }
+        
+        @Override
+        public double distance( final int city1, final int city2 ) 
+        { 
+            return EuclideanGraph.distance( cities[ city1 ], cities[ city2 ] ); 
+        }
+    }
+}
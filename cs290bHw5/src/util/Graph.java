@@ -30,8 +30,6 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
-import static util.EuclideanGraph.distance;
-import static util.EuclideanGraph.tourDistance;
 
 /**
  * Make graph of numCities cities in unit square.
@@ -50,12 +48,14 @@ public class Graph
         return graph;
     }
     
-    public static List<Integer> greedyTour( double[][] cities )
+    public static List<Integer> greedyTour( double[][] cities ) { return greedyTour( DistanceMatrix.make( cities ) ); }
+    
+    public static List<Integer> greedyTour( DistanceMatrix distances )
     {
 //        List<Integer> tour = Arrays.asList( 0 );
         List<Integer> tour = new ArrayList<>();
         tour.add( 0 );
-        List<Integer> unvisitedCities = IntStream.range( 1, cities.length ).boxed().collect( Collectors.toList() );
+        List<Integer> unvisitedCities = IntStream.range( 1, distances.size() ).boxed().collect( Collectors.toList() );
         for ( int nearestCity = -1, baseCity = 0; ! unvisitedCities.isEmpty(); baseCity = nearestCity )
         {
             // select unvisited city that is nearest to baseCity 
@@ -65,7 +65,7 @@ public class Graph
             for ( int i = 0; i < numUnvisitedCities; i++ )
             {
                 Integer nextCity = unvisitedCities.get( i );
-                double nextCityDistance = distance( cities[ baseCity ], cities[ nextCity ] );
+                double nextCityDistance = distances.distance( baseCity, nextCity );
                 if ( nextCityDistance < nearestCityDistance )
                 {
                    nearestCity = nextCity;
@@ -77,7 +77,7 @@ public class Graph
             tour.add( nearestCity );
         }
         Logger.getLogger( EuclideanGraph.class.getCanonicalName() )
-              .log(Level.INFO, "\n\tTour: {0}\n\tCost: {1}", new Object[]{ tour, tourDistance( cities, tour ) } );
+              .log(Level.INFO, "\n\tTour: {0}\n\tCost: {1}", new Object[]{ tour, distances.tourDistance( tour ) } );
         return tour;
     }
 }